@@ -0,0 +1,33 @@
+package com.marginallyclever.interactivecomponentlist.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+
+/**
+ * Add one row to the middle of the list and show it.  It is removed again outside the measured time.
+ */
+public class AddBenchmark extends ListState {
+    private Component extra;
+
+    @Override
+    protected void setUp() {
+        extra = Rows.create(component, rows);
+    }
+
+    @TearDown(Level.Invocation)
+    public void undo() {
+        Rows.onEdt(() -> {
+            list.remove(extra);
+            showChanges();
+        });
+    }
+
+    @Benchmark
+    public void add() {
+        Rows.onEdt(() -> {
+            list.add(extra, rows / 2);
+            showChanges();
+        });
+    }
+}
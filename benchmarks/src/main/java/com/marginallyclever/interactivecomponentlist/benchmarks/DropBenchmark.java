@@ -0,0 +1,30 @@
+package com.marginallyclever.interactivecomponentlist.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Drop the row a quarter of the way down the list three quarters of the way down, and show the change.  The handle is
+ * pressed outside the measured time.
+ */
+public class DropBenchmark extends ListState {
+    private int dropY;
+
+    @Override
+    protected void setUp() {
+        // rows are all the same height, so this stays the top of the row three quarters down.
+        dropY = list.getComponent(rows * 3 / 4).getY();
+    }
+
+    @Setup(Level.Invocation)
+    public void press() {
+        Rows.onEdt(() -> Rows.pressHandle(list, rows / 4));
+    }
+
+    @Benchmark
+    public void moveDroppableHere() {
+        Rows.onEdt(() -> {
+            list.moveDroppableHere(dropY);
+            showChanges();
+        });
+    }
+}
@@ -0,0 +1,73 @@
+package com.marginallyclever.interactivecomponentlist.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Benchmarks that read or redraw a list without changing its rows.  The reads are too quick to hand to the EDT one at
+ * a time, so each invocation does several and JMH divides the time between them.
+ */
+public class ListBenchmark extends ListState {
+    private static final int DROP_INDEXES = 1024;
+    private static final int SELECTIONS = 16;
+    private final int[] dropY = new int[DROP_INDEXES];
+    private int width;
+
+    @Override
+    protected void setUp() {
+        width = list.getWidth();
+        Random random = new Random(1);
+        for (int i = 0; i < dropY.length; ++i) dropY[i] = random.nextInt(list.getHeight());
+        // every tenth row is selected.
+        for (int i = 0; i < rows; i += 10) list.getSelectionModel().setSelected(i, true);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(DROP_INDEXES)
+    public int getDropIndex() {
+        int[] sum = new int[1];
+        Rows.onEdt(() -> {
+            for (int y : dropY) sum[0] += list.getDropIndex(new Point(0, y));
+        });
+        return sum[0];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SELECTIONS)
+    public int getSelectedComponents() {
+        int[] sum = new int[1];
+        Rows.onEdt(() -> {
+            for (int i = 0; i < SELECTIONS; ++i) {
+                List<Component> selected = list.getSelectedComponents();
+                sum[0] += selected.size();
+            }
+        });
+        return sum[0];
+    }
+
+    /**
+     * A change of width makes the layout place every row again.
+     */
+    @Benchmark
+    public void doLayout() {
+        Rows.onEdt(() -> {
+            width = width == Rows.WIDTH ? Rows.WIDTH + 1 : Rows.WIDTH;
+            list.setSize(width, list.getHeight());
+            list.doLayout();
+        });
+    }
+
+    /**
+     * Paint what the viewport in the middle of the list shows.
+     */
+    @Benchmark
+    public BufferedImage paint() {
+        BufferedImage[] image = new BufferedImage[1];
+        Rows.onEdt(() -> image[0] = showChanges());
+        return image[0];
+    }
+}
@@ -0,0 +1,62 @@
+package com.marginallyclever.interactivecomponentlist.benchmarks;
+
+import com.marginallyclever.interactivecomponentlist.InteractiveComponentList;
+import org.openjdk.jmh.annotations.*;
+
+import javax.swing.*;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>The parameters and the list shared by every benchmark.  Each benchmark class runs once for every combination of
+ * row count, kind of component and {@link InteractiveComponentList.RowStyle}; narrow them with <code>-p</code>.</p>
+ * <p>The list is shown in a {@link JScrollPane} the size of a window, and everything that touches it runs on the
+ * Event Dispatch Thread.  A benchmark that changes the list also lays it out and paints the viewport in the measured
+ * time, so it measures what the user waits for and not only the list's bookkeeping.  Handing each invocation to the
+ * EDT adds a few microseconds to every result.</p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Xmx4g"})
+public abstract class ListState {
+    @Param({"10", "100", "1000", "10000", "100000"})
+    public int rows;
+
+    @Param({"simple", "heavy"})
+    public String component;
+
+    @Param({"COMPONENTS", "PAINTED"})
+    public String style;
+
+    protected InteractiveComponentList list;
+    protected JScrollPane scrollPane;
+    private BufferedImage image;
+
+    @Setup(Level.Trial)
+    public void createList() {
+        Rows.onEdt(() -> {
+            list = Rows.createList(style, component, rows);
+            scrollPane = Rows.createScrollPane(list);
+            image = new BufferedImage(scrollPane.getWidth(), Rows.VIEWPORT_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+            setUp();
+        });
+    }
+
+    /**
+     * Called on the EDT once the list exists.  JMH does not promise to run a subclass's setup after this class's, so
+     * subclasses override this instead of adding their own trial setup.
+     */
+    protected void setUp() {}
+
+    /**
+     * Lay out the list and paint the viewport, as Swing would after a change.  Call on the EDT.
+     * @return the painted viewport
+     */
+    protected BufferedImage showChanges() {
+        Rows.showChanges(scrollPane, image);
+        return image;
+    }
+}
@@ -0,0 +1,33 @@
+package com.marginallyclever.interactivecomponentlist.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.awt.*;
+
+/**
+ * Remove one row from the middle of the list and show the change.  It is added outside the measured time.
+ */
+public class RemoveBenchmark extends ListState {
+    private Component extra;
+
+    @Override
+    protected void setUp() {
+        extra = Rows.create(component, rows);
+    }
+
+    @Setup(Level.Invocation)
+    public void prepare() {
+        Rows.onEdt(() -> {
+            list.add(extra, rows / 2);
+            showChanges();
+        });
+    }
+
+    @Benchmark
+    public void remove() {
+        Rows.onEdt(() -> {
+            list.remove(extra);
+            showChanges();
+        });
+    }
+}
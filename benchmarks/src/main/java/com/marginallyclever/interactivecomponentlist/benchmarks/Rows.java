@@ -0,0 +1,124 @@
+package com.marginallyclever.interactivecomponentlist.benchmarks;
+
+import com.marginallyclever.interactivecomponentlist.InteractiveComponentList;
+import com.marginallyclever.interactivecomponentlist.InteractiveComponentListMiddle;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * Builds the lists the benchmarks run against, and runs everything that touches them on the Event Dispatch Thread.
+ */
+final class Rows {
+    static final int WIDTH = 300;
+    static final int VIEWPORT_HEIGHT = 400;
+
+    private Rows() {}
+
+    /**
+     * @param kind "simple" for a {@link JLabel}, "heavy" for a panel of several editors.
+     * @param i the row number, for the text.
+     */
+    static Component create(String kind, int i) {
+        if (kind.equals("simple")) return new JLabel("Item " + i);
+
+        JPanel panel = new JPanel(new FlowLayout(FlowLayout.LEADING, 4, 2));
+        panel.add(new JLabel("Item " + i));
+        panel.add(new JTextField("value " + i, 10));
+        panel.add(new JComboBox<>(new String[]{"one", "two", "three"}));
+        panel.add(new JCheckBox("enabled"));
+        panel.add(new JButton("..."));
+        return panel;
+    }
+
+    /**
+     * @return a list of <code>rows</code> rows, selectable, sized to its preferred size and laid out.
+     */
+    static InteractiveComponentList createList(String style, String kind, int rows) {
+        InteractiveComponentList list = new InteractiveComponentList(InteractiveComponentList.RowStyle.valueOf(style));
+        list.enableSelection(true);
+        list.beginUpdate();
+        for (int i = 0; i < rows; ++i) list.add(create(kind, i));
+        list.endUpdate();
+        layout(list);
+        return list;
+    }
+
+    static void layout(InteractiveComponentList list) {
+        list.setSize(WIDTH, list.getPreferredSize().height);
+        list.doLayout();
+        for (Component row : list.getComponents()) layoutTree(row);
+    }
+
+    /**
+     * @return a scroll pane the size of a window that shows the list, scrolled to the middle of it.
+     */
+    static JScrollPane createScrollPane(InteractiveComponentList list) {
+        JScrollPane scrollPane = new JScrollPane(list);
+        scrollPane.setSize(WIDTH + scrollPane.getVerticalScrollBar().getPreferredSize().width, VIEWPORT_HEIGHT);
+        layoutTree(scrollPane);
+        JViewport viewport = scrollPane.getViewport();
+        viewport.setViewPosition(new Point(0, Math.max(0, list.getHeight() / 2 - viewport.getHeight() / 2)));
+        return scrollPane;
+    }
+
+    /**
+     * Do what Swing does to show a change to the list: lay out the list and the rows in view, and paint the viewport.
+     * <code>validate()</code> does nothing without a window, which the headless fork can't have, so the layout is done
+     * here the way <code>validate()</code> would do it.
+     */
+    static void showChanges(JScrollPane scrollPane, BufferedImage image) {
+        JViewport viewport = scrollPane.getViewport();
+        InteractiveComponentList list = (InteractiveComponentList) viewport.getView();
+        // sizes the list to its preferred height, as the viewport does when the list is revalidated.
+        viewport.doLayout();
+        list.doLayout();
+        Rectangle view = viewport.getViewRect();
+        int first = Math.max(0, list.getRowIndexAt(view.y));
+        int last = list.getRowIndexAt(view.y + view.height - 1);
+        if (last < 0) last = list.getComponentCount() - 1;
+        for (int i = first; i <= last; ++i) layoutTree(list.getComponent(i));
+        Graphics2D g = image.createGraphics();
+        try {
+            viewport.paint(g);
+        } finally {
+            g.dispose();
+        }
+    }
+
+    /**
+     * Run on the Event Dispatch Thread and wait for it, as Swing requires.
+     */
+    static void onEdt(Runnable runnable) {
+        try {
+            SwingUtilities.invokeAndWait(runnable);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static void layoutTree(Component c) {
+        if (!(c instanceof Container container)) return;
+        container.doLayout();
+        for (Component child : container.getComponents()) layoutTree(child);
+    }
+
+    /**
+     * Press the drag handle of a row, so that the list knows which row is being dragged.
+     */
+    static void pressHandle(InteractiveComponentList list, int index) {
+        Component row = list.getComponent(index);
+        if (row instanceof InteractiveComponentListMiddle middle) {
+            Component handle = middle.getHandle();
+            handle.dispatchEvent(new MouseEvent(handle, MouseEvent.MOUSE_PRESSED, 0, 0, 1, 1, 1, false, MouseEvent.BUTTON1));
+        } else {
+            list.dispatchEvent(new MouseEvent(list, MouseEvent.MOUSE_PRESSED, 0, 0, 1, row.getY() + 1, 1, false, MouseEvent.BUTTON1));
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.marginallyclever.interactivecomponentlist;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.function.IntConsumer;
+
+/**
+ * <p>{@link DragAutoScroller} scrolls the {@link JViewport} around a list while a row is dragged near its top or
+ * bottom edge.</p>
+ * <p>Scrolling is driven by a {@link Timer} and not by drag events, so it keeps going at a steady pace while the
+ * pointer is held still.  The speed grows with how deep the pointer is in the edge zone and is scaled by the time
+ * since the last frame, so a late timer does not slow the scroll down.  Each frame moves the view with
+ * <code>JViewport.setViewPosition</code>, which blits what is already on screen in the viewport's default scroll
+ * mode, and then tells the list where the pointer now is so it can move the drop line to the new row.</p>
+ */
+class DragAutoScroller {
+    // height of the zone at the top and bottom of the viewport where scrolling starts.
+    static final int EDGE = 40;
+    // pixels per second with the pointer at the very edge.
+    static final double MAX_SPEED = 1500;
+    private static final int FRAME_MS = 16;
+
+    private final JComponent owner;
+    private final IntConsumer onScroll;
+    private final Timer timer = new Timer(FRAME_MS, e -> tick());
+    // the pointer, relative to the viewport.
+    private Point pointer;
+    private long lastTick;
+    private double remainder;
+
+    /**
+     * @param owner the list, which must be the view of a {@link JViewport} for anything to happen.
+     * @param onScroll told the y coordinate of the pointer relative to <code>owner</code> after every scroll.
+     */
+    DragAutoScroller(JComponent owner, IntConsumer onScroll) {
+        this.owner = owner;
+        this.onScroll = onScroll;
+        timer.setCoalesce(true);
+    }
+
+    /**
+     * The pointer moved during a drag.  Start or stop scrolling to match.
+     * @param pointInOwner the pointer, relative to the list.
+     */
+    public void update(Point pointInOwner) {
+        JViewport viewport = getViewport();
+        if (viewport == null) return;
+        pointer = SwingUtilities.convertPoint(owner, pointInOwner, viewport);
+        if (getVelocity(viewport) == 0) {
+            stop();
+        } else if (!timer.isRunning()) {
+            lastTick = System.nanoTime();
+            remainder = 0;
+            timer.start();
+        }
+    }
+
+    /**
+     * The drag left a drop target.  Stop unless the pointer is still over the viewport, as it is when it only moved
+     * from one row to another.
+     */
+    public void exited() {
+        JViewport viewport = getViewport();
+        PointerInfo info = GraphicsEnvironment.isHeadless() ? null : MouseInfo.getPointerInfo();
+        if (viewport == null || info == null || !viewport.isShowing()) {
+            stop();
+            return;
+        }
+        Point p = info.getLocation();
+        SwingUtilities.convertPointFromScreen(p, viewport);
+        if (!new Rectangle(viewport.getSize()).contains(p)) stop();
+    }
+
+    public void stop() {
+        timer.stop();
+    }
+
+    public boolean isScrolling() {
+        return timer.isRunning();
+    }
+
+    private JViewport getViewport() {
+        return owner.getParent() instanceof JViewport viewport ? viewport : null;
+    }
+
+    /**
+     * @return the scroll speed in pixels per second, negative to scroll up.
+     */
+    private double getVelocity(JViewport viewport) {
+        if (pointer == null || pointer.x < 0 || pointer.x >= viewport.getWidth()) return 0;
+        int height = viewport.getHeight();
+        int zone = Math.min(EDGE, height / 4);
+        if (zone <= 0) return 0;
+        int y = pointer.y;
+        if (y < zone) return -MAX_SPEED * Math.min(zone, zone - y) / zone;
+        if (y >= height - zone) return MAX_SPEED * Math.min(zone, y - (height - zone) + 1) / zone;
+        return 0;
+    }
+
+    private void tick() {
+        long now = System.nanoTime();
+        double seconds = (now - lastTick) / 1e9;
+        lastTick = now;
+        scroll(seconds);
+    }
+
+    /**
+     * Scroll as far as the current speed goes in the given time.
+     * @param seconds the time since the last frame
+     * @return true if the view moved.
+     */
+    boolean scroll(double seconds) {
+        JViewport viewport = getViewport();
+        double velocity = viewport == null ? 0 : getVelocity(viewport);
+        if (velocity == 0) {
+            stop();
+            return false;
+        }
+        remainder += velocity * seconds;
+        int dy = (int) remainder;
+        remainder -= dy;
+        if (dy == 0) return false;
+
+        Point position = viewport.getViewPosition();
+        int max = Math.max(0, viewport.getViewSize().height - viewport.getExtentSize().height);
+        int y = Math.max(0, Math.min(max, position.y + dy));
+        if (y == position.y) {
+            // reached the end of the list.
+            stop();
+            return false;
+        }
+        viewport.setViewPosition(new Point(position.x, y));
+        onScroll.accept(SwingUtilities.convertPoint(viewport, pointer, owner).y);
+        return true;
+    }
+}
@@ -0,0 +1,225 @@
+package com.marginallyclever.interactivecomponentlist;
+
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>{@link DragReplayer} plays a {@link DragTrace} back into a {@link InteractiveComponentList} without a display,
+ * a {@link java.awt.Robot}, or waiting, and measures how long the list takes to handle each event.</p>
+ * <p>Each event goes where a real one would.  Over a row of a {@link InteractiveComponentList.RowStyle#COMPONENTS}
+ * list it goes through the row's drop target listener; anywhere else through the list's own drop target listener.
+ * Only the AWT drag and drop machinery is skipped, because it can not run without a display.</p>
+ * <p>The replayer also keeps its own copy of the order of the rows, reordered from the permutation in every
+ * {@link InteractiveComponentListEvent}, and at the end checks it against the list.  It checks every drop against
+ * where the trace says the dragged row ended up, too.</p>
+ * <p>A drop on another list can't be replayed, because the other list is not there.  The replayer ends the drag,
+ * moves nothing, and counts the transfer.  Once a trace has a transfer the list no longer holds the rows the
+ * recorded list did, so what follows may not match the recording.</p>
+ * <p>Replay on the Event Dispatch Thread, with no event executor set on the list.</p>
+ */
+public class DragReplayer {
+    /**
+     * What happened during one replay.
+     */
+    public static class Result {
+        private final InteractiveComponentListMetricsRecorder.Histogram over =
+                new InteractiveComponentListMetricsRecorder.Histogram();
+        private final InteractiveComponentListMetricsRecorder.Histogram drop =
+                new InteractiveComponentListMetricsRecorder.Histogram();
+        private int gestures = 0;
+        private int dropMismatches = 0;
+        private int transfers = 0;
+        private boolean orderMatches = true;
+
+        /**
+         * @return how long each dragged-over event took, in nanoseconds.
+         */
+        public InteractiveComponentListMetricsRecorder.Histogram getDragOverLatency() {
+            return over;
+        }
+
+        /**
+         * @return how long each drop took, in nanoseconds, including the layout that follows it.
+         */
+        public InteractiveComponentListMetricsRecorder.Histogram getDropLatency() {
+            return drop;
+        }
+
+        public int getGestureCount() {
+            return gestures;
+        }
+
+        /**
+         * @return the number of drops where the dragged row did not end up where the trace says it did.
+         */
+        public int getDropMismatches() {
+            return dropMismatches;
+        }
+
+        /**
+         * @return the number of drops on another list, which were not replayed.
+         */
+        public int getTransferCount() {
+            return transfers;
+        }
+
+        /**
+         * @return true if the events fired during the replay describe the order the rows are in at the end.
+         */
+        public boolean isOrderConsistent() {
+            return orderMatches;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d gestures, drag over p50 %d ns p99 %d ns max %d ns, "
+                            + "drop p50 %d ns p99 %d ns max %d ns, "
+                            + "%d drop mismatches, %d transfers not replayed, order %s",
+                    gestures, over.getPercentile(50), over.getPercentile(99), over.getMax(),
+                    drop.getPercentile(50), drop.getPercentile(99), drop.getMax(),
+                    dropMismatches, transfers, orderMatches ? "consistent" : "inconsistent");
+        }
+    }
+
+    private final InteractiveComponentList list;
+    private BufferedImage canvas;
+    private boolean paintEachEvent = false;
+
+    public DragReplayer(InteractiveComponentList list) {
+        this.list = list;
+    }
+
+    /**
+     * @param paint true to also paint the list into an offscreen image after every event, and count that in its
+     *              latency.
+     */
+    public void setPaintEachEvent(boolean paint) {
+        paintEachEvent = paint;
+    }
+
+    /**
+     * Play every event of the trace into the list.
+     * @param trace the trace
+     * @return how long each event took, and whether the list ended up as it should.
+     */
+    public Result replay(DragTrace trace) {
+        Result result = new Result();
+        List<Component> order = new ArrayList<>(Arrays.asList(list.getComponents()));
+        ListDataListener follower = new ListDataListener() {
+            @Override
+            public void intervalAdded(ListDataEvent e) {
+                result.orderMatches = false;
+            }
+
+            @Override
+            public void intervalRemoved(ListDataEvent e) {
+                result.orderMatches = false;
+            }
+
+            @Override
+            public void contentsChanged(ListDataEvent e) {
+                if (!(e instanceof InteractiveComponentListEvent ice) || !ice.isPermutation()) {
+                    result.orderMatches = false;
+                    return;
+                }
+                Component[] before = order.subList(e.getIndex0(), e.getIndex1() + 1).toArray(new Component[0]);
+                for (int i = e.getIndex0(); i <= e.getIndex1(); ++i) {
+                    order.set(i, before[ice.getOldIndex(i) - e.getIndex0()]);
+                }
+            }
+        };
+        list.addListener(follower);
+        try {
+            for (int i = 0; i < trace.size(); ++i) {
+                play(trace, i, result);
+            }
+        } finally {
+            list.removeListener(follower);
+        }
+        if (!order.equals(Arrays.asList(list.getComponents()))) result.orderMatches = false;
+        return result;
+    }
+
+    private void play(DragTrace trace, int i, Result result) {
+        long start = System.nanoTime();
+        switch (trace.getKind(i)) {
+            case DragTrace.START -> {
+                list.dragStarted(trace.getRow(i));
+                result.gestures++;
+                return;
+            }
+            case DragTrace.OVER -> {
+                Point p = new Point(trace.getX(i), trace.getY(i));
+                Container row = getRowAt(p.y);
+                if (row != null) {
+                    InteractiveComponentListMiddle.DADInnerPanelDropTargetListener.dragOverRow(row, toRow(p, row));
+                } else {
+                    list.dragOverAt(p);
+                }
+            }
+            case DragTrace.EXIT -> {
+                list.dragExited();
+                return;
+            }
+            case DragTrace.TRANSFER -> {
+                list.dragFinished();
+                result.transfers++;
+                return;
+            }
+            case DragTrace.DROP -> {
+                int draggedIndex = list.getDraggedIndex();
+                Component dragged = draggedIndex >= 0 && draggedIndex < list.getComponentCount()
+                        ? list.getComponent(draggedIndex) : null;
+                Point p = new Point(0, trace.getY(i));
+                Container row = getRowAt(p.y);
+                if (row != null) {
+                    InteractiveComponentListMiddle.DADInnerPanelDropTargetListener
+                            .dropOnRow(row, toRow(p, row), dragged);
+                } else {
+                    list.dropOnList(dragged);
+                }
+                list.doLayout();
+                if (trace.getRow(i) >= 0 && trace.getRow(i) != list.getDraggedIndex()) result.dropMismatches++;
+            }
+            default -> throw new IllegalArgumentException("unknown event " + trace.getKind(i) + " at " + i);
+        }
+        if (paintEachEvent) paint();
+        long nanos = System.nanoTime() - start;
+        if (trace.getKind(i) == DragTrace.OVER) result.over.record(nanos);
+        else result.drop.record(nanos);
+    }
+
+    /**
+     * @return the row that would get a real event at <code>y</code>, or null if the list itself would.
+     */
+    private Container getRowAt(int y) {
+        if (list.getRowStyle() != InteractiveComponentList.RowStyle.COMPONENTS) return null;
+        int index = list.getRowIndexAt(y);
+        return index < 0 ? null : (Container) list.getComponent(index);
+    }
+
+    private static Point toRow(Point p, Component row) {
+        return new Point(p.x - row.getX(), p.y - row.getY());
+    }
+
+    private void paint() {
+        Rectangle r = list.getVisibleRect();
+        if (r.isEmpty()) return;
+        if (canvas == null || canvas.getWidth() < r.width || canvas.getHeight() < r.height) {
+            canvas = new BufferedImage(r.width, r.height, BufferedImage.TYPE_INT_ARGB);
+        }
+        Graphics2D g = canvas.createGraphics();
+        try {
+            g.translate(-r.x, -r.y);
+            g.setClip(r);
+            list.paint(g);
+        } finally {
+            g.dispose();
+        }
+    }
+}
@@ -0,0 +1,213 @@
+package com.marginallyclever.interactivecomponentlist;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>{@link DragTrace} is a recording of drag gestures over a {@link InteractiveComponentList}: where each drag
+ * started, every point the pointer was dragged over, where it left the list, and where it was dropped or which other
+ * list took it, each with the time it happened.  Give one to <code>InteractiveComponentList.setDragRecorder</code> to
+ * record real sessions, and play it back without a display with {@link DragReplayer}.</p>
+ * <p>Events are kept in parallel arrays of primitives, 21 bytes each plus the name of the list for a transfer, and
+ * <code>write</code> and <code>read</code> store a trace in the same form so it can be kept with a bug report or a
+ * test.</p>
+ * <p>Points are relative to the list.  A trace is not thread safe; record and replay on the Event Dispatch Thread.</p>
+ */
+public class DragTrace {
+    /**
+     * A drag started from the handle of a row.  <code>getRow</code> is the index of the row.
+     */
+    public static final byte START = 0;
+    /**
+     * The pointer was dragged over the list at <code>getX</code>, <code>getY</code>.
+     */
+    public static final byte OVER = 1;
+    /**
+     * The pointer left the list.
+     */
+    public static final byte EXIT = 2;
+    /**
+     * The row was dropped on the drop line at <code>getY</code>.  <code>getRow</code> is where the dragged row ended
+     * up.
+     */
+    public static final byte DROP = 3;
+    /**
+     * The row was dropped on another list, which took it.  <code>getRow</code> is the index the row had in this list,
+     * <code>getY</code> is the drop line in the other list, and <code>getTarget</code> is the name of the other list.
+     */
+    public static final byte TRANSFER = 4;
+
+    private static final int MAGIC = 0x44524147;  // "DRAG"
+    // version 1 had no TRANSFER events, and no names.
+    private static final int VERSION = 2;
+
+    private byte[] kinds = new byte[64];
+    private int[] xs = new int[64];
+    private int[] ys = new int[64];
+    private int[] rows = new int[64];
+    // nanoseconds since the first event.
+    private long[] times = new long[64];
+    // the name of the target of each TRANSFER, by event index.  transfers are rare, so most events have none.
+    private final Map<Integer, String> targets = new HashMap<>();
+    private int size = 0;
+    private long origin = -1;
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return the number of drags started.
+     */
+    public int getGestureCount() {
+        int count = 0;
+        for (int i = 0; i < size; ++i) if (kinds[i] == START) count++;
+        return count;
+    }
+
+    public byte getKind(int index) {
+        checkIndex(index);
+        return kinds[index];
+    }
+
+    public int getX(int index) {
+        checkIndex(index);
+        return xs[index];
+    }
+
+    public int getY(int index) {
+        checkIndex(index);
+        return ys[index];
+    }
+
+    public int getRow(int index) {
+        checkIndex(index);
+        return rows[index];
+    }
+
+    /**
+     * @return for a {@link #TRANSFER}, the name of the list that took the row, or null if it has none.
+     */
+    public String getTarget(int index) {
+        checkIndex(index);
+        return targets.get(index);
+    }
+
+    /**
+     * @return when the event happened, in nanoseconds since the first event.
+     */
+    public long getTime(int index) {
+        checkIndex(index);
+        return times[index];
+    }
+
+    public void addStart(int row, long nanos) {
+        add(START, 0, 0, row, nanos);
+    }
+
+    public void addOver(int x, int y, long nanos) {
+        add(OVER, x, y, -1, nanos);
+    }
+
+    public void addExit(long nanos) {
+        add(EXIT, 0, 0, -1, nanos);
+    }
+
+    public void addDrop(int lineY, int row, long nanos) {
+        add(DROP, 0, lineY, row, nanos);
+    }
+
+    /**
+     * @param target the name of the list that took the row, or null.
+     */
+    public void addTransfer(int lineY, int row, String target, long nanos) {
+        if (target != null) targets.put(size, target);
+        add(TRANSFER, 0, lineY, row, nanos);
+    }
+
+    /**
+     * @param nanos a time from <code>System.nanoTime()</code>
+     */
+    private void add(byte kind, int x, int y, int row, long nanos) {
+        if (origin < 0) origin = nanos;
+        if (size == kinds.length) {
+            int n = size * 2;
+            kinds = Arrays.copyOf(kinds, n);
+            xs = Arrays.copyOf(xs, n);
+            ys = Arrays.copyOf(ys, n);
+            rows = Arrays.copyOf(rows, n);
+            times = Arrays.copyOf(times, n);
+        }
+        kinds[size] = kind;
+        xs[size] = x;
+        ys[size] = y;
+        rows[size] = row;
+        times[size] = nanos - origin;
+        size++;
+    }
+
+    public void clear() {
+        size = 0;
+        origin = -1;
+        targets.clear();
+    }
+
+    /**
+     * Write this trace.  The stream is not closed.
+     */
+    public void write(OutputStream out) throws IOException {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(MAGIC);
+        data.writeInt(VERSION);
+        data.writeInt(size);
+        for (int i = 0; i < size; ++i) {
+            data.writeByte(kinds[i]);
+            data.writeInt(xs[i]);
+            data.writeInt(ys[i]);
+            data.writeInt(rows[i]);
+            data.writeLong(times[i]);
+            if (kinds[i] == TRANSFER) {
+                String target = targets.get(i);
+                data.writeBoolean(target != null);
+                if (target != null) data.writeUTF(target);
+            }
+        }
+        data.flush();
+    }
+
+    /**
+     * Read a trace written by <code>write</code>.  The stream is not closed.
+     * @throws IOException if the stream does not hold a trace.
+     */
+    public static DragTrace read(InputStream in) throws IOException {
+        // not buffered, so nothing after the trace is read from the stream.
+        DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) throw new IOException("not a drag trace");
+        int version = data.readInt();
+        if (version < 1 || version > VERSION) throw new IOException("unknown drag trace version " + version);
+        DragTrace trace = new DragTrace();
+        int n = data.readInt();
+        trace.origin = 0;
+        for (int i = 0; i < n; ++i) {
+            byte kind = data.readByte();
+            int x = data.readInt();
+            int y = data.readInt();
+            int row = data.readInt();
+            long nanos = data.readLong();
+            if (kind == TRANSFER) {
+                trace.addTransfer(y, row, data.readBoolean() ? data.readUTF() : null, nanos);
+            } else {
+                trace.add(kind, x, y, row, nanos);
+            }
+        }
+        return trace;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("index " + index + " out of range 0.." + (size - 1));
+        }
+    }
+}
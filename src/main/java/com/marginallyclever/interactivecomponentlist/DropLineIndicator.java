@@ -0,0 +1,63 @@
+package com.marginallyclever.interactivecomponentlist;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * <p>{@link DropLineIndicator} is the line drawn across a list to show where a dragged row will land.</p>
+ * <p>Moving the line only repaints the strip it left and the strip it moved to, so the rows under the rest of the
+ * list are not painted again on every drag event.</p>
+ */
+class DropLineIndicator {
+    static final int THICKNESS = 4;
+    private final JComponent owner;
+    private int y = -1;
+
+    DropLineIndicator(JComponent owner) {
+        this.owner = owner;
+    }
+
+    /**
+     * @return the y coordinate of the middle of the line, or -1 if it is not showing.
+     */
+    public int getY() {
+        return y;
+    }
+
+    /**
+     * @param newY the y coordinate of the middle of the line.
+     */
+    public void moveTo(int newY) {
+        if (newY == y) return;
+        repaintStrip(y);
+        y = newY;
+        repaintStrip(y);
+    }
+
+    public void clear() {
+        repaintStrip(y);
+        y = -1;
+    }
+
+    private void repaintStrip(int stripY) {
+        if (stripY < 0) return;
+        owner.repaint(getStrip(stripY));
+    }
+
+    private Rectangle getStrip(int stripY) {
+        return new Rectangle(0, stripY - THICKNESS / 2, owner.getWidth(), THICKNESS);
+    }
+
+    /**
+     * Paint the line, if it is showing and inside the clip.
+     * @param g the graphics context of the owner
+     */
+    public void paint(Graphics g) {
+        if (y < 0) return;
+        Rectangle strip = getStrip(y);
+        Rectangle clip = g.getClipBounds();
+        if (clip != null && !clip.intersects(strip)) return;
+        g.setColor(Color.BLUE);
+        g.fillRect(strip.x, strip.y, strip.width, strip.height);
+    }
+}
@@ -0,0 +1,108 @@
+package com.marginallyclever.interactivecomponentlist;
+
+import jdk.jfr.*;
+
+/**
+ * <p>The JDK Flight Recorder events fired by {@link InteractiveComponentList}.  Each is created on the stack and only
+ * filled in and committed when <code>shouldCommit()</code> says a recording wants it, so with no recording running
+ * they cost next to nothing.</p>
+ * <p>The module only <code>requires static jdk.jfr</code>, so it runs where the module is missing, such as a runtime
+ * built by jlink without it.  Check <code>ENABLED</code> before creating an event; this class itself never loads
+ * anything from <code>jdk.jfr</code>.</p>
+ */
+final class FlightRecorderEvents {
+    private static final String CATEGORY = "InteractiveComponentList";
+
+    /**
+     * True if <code>jdk.jfr</code> can be used.
+     */
+    static final boolean ENABLED = isAvailable();
+
+    private FlightRecorderEvents() {}
+
+    private static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event", false, FlightRecorderEvents.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    @Name("com.marginallyclever.interactivecomponentlist.DragStart")
+    @Label("Drag Start")
+    @Category({"Swing", CATEGORY})
+    @Description("The handle of a row was pressed to start a drag.")
+    @StackTrace(false)
+    static class DragStart extends Event {
+        @Label("Row")
+        int row;
+
+        @Label("Row Count")
+        int rowCount;
+    }
+
+    @Name("com.marginallyclever.interactivecomponentlist.Drop")
+    @Label("Drop")
+    @Category({"Swing", CATEGORY})
+    @Description("A dragged row was dropped and the rows were moved.")
+    @StackTrace(false)
+    static class Drop extends Event {
+        @Label("From")
+        int from;
+
+        @Label("To")
+        int to;
+
+        @Label("Rows Moved")
+        int rowsMoved;
+
+        @Label("Row Count")
+        int rowCount;
+    }
+
+    @Name("com.marginallyclever.interactivecomponentlist.Commit")
+    @Label("Commit")
+    @Category({"Swing", CATEGORY})
+    @Description("A batch of changes ended and was reported to listeners.")
+    @StackTrace(false)
+    static class Commit extends Event {
+        @Label("Type")
+        int type;
+
+        @Label("Index 0")
+        int index0;
+
+        @Label("Index 1")
+        int index1;
+
+        @Label("Row Count")
+        int rowCount;
+    }
+
+    @Name("com.marginallyclever.interactivecomponentlist.Layout")
+    @Label("Layout")
+    @Category({"Swing", CATEGORY})
+    @Description("The rows of the list were laid out.")
+    @StackTrace(false)
+    static class Layout extends Event {
+        @Label("Rows Placed")
+        int rowsPlaced;
+
+        @Label("Row Count")
+        int rowCount;
+    }
+
+    @Name("com.marginallyclever.interactivecomponentlist.Paint")
+    @Label("Paint")
+    @Category({"Swing", CATEGORY})
+    @Description("The list and its rows were painted.")
+    @StackTrace(false)
+    static class Paint extends Event {
+        @Label("Clip Height")
+        int clipHeight;
+
+        @Label("Row Count")
+        int rowCount;
+    }
+}
@@ -4,34 +4,128 @@ import javax.swing.*;
 import javax.swing.event.ListDataEvent;
 import javax.swing.event.ListDataListener;
 import java.awt.*;
+import java.awt.datatransfer.Transferable;
 import java.awt.dnd.*;
+import java.awt.event.ActionEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseMotionAdapter;
-import java.util.ArrayList;
+import java.util.*;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 /**
  * <p>{@link InteractiveComponentList} contains {@link Component}s that can be vertically rearranged by dragging a handle.</p>
  * <p>To use, call <code>add(component)</code> on {@link InteractiveComponentList}, which will wrap <code>component</code> in a
  * {@link InteractiveComponentListMiddle} and add it to the bottom end of the panel.
- * <p>{@link InteractiveComponentList} fires {@link ListDataEvent} to all {@link ListDataListener} subscribers when the
- * order of the list is changed.</p>
- * <p>The {@link InteractiveComponentList} also supports auto-scrolling when dragging a elements near the top or bottom of the viewport.</p>
+ * <p>{@link InteractiveComponentList} fires {@link ListDataEvent} to all {@link ListDataListener} subscribers when
+ * rows are added, removed, or the order of the list is changed.  The events are {@link InteractiveComponentListEvent}s,
+ * which also describe the permutation when rows were only reordered.  Every change made during one batch or one drag
+ * is coalesced into a single event.  With <code>setEventExecutor</code> the events are delivered off the Event Dispatch
+ * Thread.</p>
+ * <p>Dragging the handle of a selected row moves every selected row as one block.  Rows can be dragged to another
+ * list with the same {@link RowStyle}, or moved there with <code>transferTo</code>.  <code>sort</code> and
+ * <code>reorder</code> move only the rows that are out of place.  Reorders can be undone and redone with
+ * <code>undo()</code> and <code>redo()</code>.</p>
+ * <p>Many rows can be changed at once with <code>addAll</code>, <code>removeAll</code> and <code>replaceAll</code>, or
+ * by wrapping any number of changes in <code>beginUpdate()</code> and <code>endUpdate()</code>.  Either way the list
+ * is laid out once and fires one {@link ListDataEvent} for the whole batch.</p>
+ * <p>The {@link InteractiveComponentList} also supports auto-scrolling when dragging a elements near the top or bottom of the viewport.
+ * Scrolling keeps going while the pointer is held still, faster the closer it is to the edge.</p>
  * <p>Because the {@link Component}s are wrapped, calling <code>getComponent</code> will return the {@link InteractiveComponentListMiddle}.
  * <p>To obtain the item being wrapped, use <code>getInnerComponent(int index)</code>.  Calling remove() with the results of either
- * <code>getComponent</code> or <code>getInnerComponent</code> will work.</p>
+ * <code>getComponent</code> or <code>getInnerComponent</code> will work, as will <code>indexOf</code> and
+ * <code>contains</code>, which find a row from either without scanning the list.</p>
+ * <p>Each {@link InteractiveComponentListMiddle} brings its own handle, checkbox, borders and drop target.  For very
+ * long lists construct the list with {@link RowStyle#PAINTED} instead.  Components are then added as they are, and the
+ * list paints and hit-tests every handle and checkbox itself with one shared drop target, so a row costs no more than
+ * its component.</p>
+ * <p>Other threads may queue changes with <code>submitAdd</code>, <code>submitRemove</code> and <code>submitMove</code>
+ * without <code>SwingUtilities.invokeLater</code>.  They are applied on the Event Dispatch Thread once per frame as one
+ * batch.</p>
+ * <p><code>setFilter</code> hides the rows whose component does not match a predicate without removing them.  Hidden
+ * rows keep their index and take no space.  Indexes passed to and returned from the list are always row indexes;
+ * <code>convertRowIndexToView</code> and <code>convertRowIndexToModel</code> convert them to and from indexes that
+ * count only the rows shown.</p>
+ * <p>Components that are slow to build can be added with <code>add(Supplier, int)</code>.  A placeholder row is
+ * added straight away and the component is built on a background thread, rows near the visible part of the list
+ * first, then swapped into the row on the Event Dispatch Thread.</p>
+ * <p>With <code>setDragSnapshotsEnabled(true)</code> rows that are costly to paint are painted from cached pictures
+ * while a drag is in progress.</p>
+ * <p>Drags, drops, batches, layout and paint are reported as JDK Flight Recorder events, and to
+ * {@link InteractiveComponentListMetrics} set with <code>setMetrics</code>.</p>
  */
 public class InteractiveComponentList extends JPanel {
+    /**
+     * How the drag handle and selection checkbox of each row are made.
+     */
+    public enum RowStyle {
+        /**
+         * Every component is wrapped in a {@link InteractiveComponentListMiddle} with its own handle, checkbox and
+         * drop target.
+         */
+        COMPONENTS,
+        /**
+         * Components are added as they are.  The list paints the handle left of every row and the checkbox right of
+         * every row, and has the only drop target.
+         */
+        PAINTED
+    }
+
+    private final RowStyle rowStyle;
+    private final PaintedRowChrome chrome = new PaintedRowChrome();
     private int draggedIndex = -1;
-    private int lineY = -1;
+    private final DropLineIndicator lineIndicator = new DropLineIndicator(this);
+    private final DragAutoScroller autoScroller = new DragAutoScroller(this, y -> updateLineIndicator(getDropLineY(y)));
     private boolean showCheckboxes=false;
+    private final RowOffsets rowOffsets = new RowOffsets();
+    private final InteractiveComponentListLayout listLayout = new InteractiveComponentListLayout(rowOffsets);
+    private final PendingListChange pendingChange = new PendingListChange();
+    private final InteractiveComponentListSelectionModel selectionModel = new InteractiveComponentListSelectionModel();
+    private int updateDepth = 0;
+    private Executor eventExecutor = null;
+    private final MutationQueue mutations = new MutationQueue(this);
+    private final RowIndex rowIndex = new RowIndex();
+    private InteractiveComponentListMetrics metrics = InteractiveComponentListMetrics.NONE;
+    private long dragStartNanos = 0;
+    private Predicate<? super Component> filter = null;
+    private final ReorderHistory history = new ReorderHistory();
+    // true while undo() or redo() is reordering the rows.
+    private boolean replaying = false;
+    private final LazyRowLoader loader = new LazyRowLoader(this);
+    // rows made invisible by the filter, as opposed to rows the application made invisible.
+    private final Set<Component> hiddenByFilter = Collections.newSetFromMap(new IdentityHashMap<>());
+    // components built while a batch was open, to replace their placeholders when it ends.
+    private final Map<LazyRowLoader.Placeholder, Component> deferredRealizations = new LinkedHashMap<>();
+    private final RowSnapshotCache snapshots = new RowSnapshotCache(this);
+    private DragTrace dragRecorder = null;
 
     public InteractiveComponentList() {
+        this(RowStyle.COMPONENTS);
+    }
+
+    /**
+     * @param rowStyle how the drag handle and selection checkbox of each row are made.
+     */
+    public InteractiveComponentList(RowStyle rowStyle) {
         super();
-        setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
+        this.rowStyle = Objects.requireNonNull(rowStyle);
+        setLayout(listLayout);
 
-        new DropTarget(this, DnDConstants.ACTION_MOVE, new PanelDragAndDropHandler(), true);
+        if(!GraphicsEnvironment.isHeadless()) {
+            new DropTarget(this, DnDConstants.ACTION_MOVE, new PanelDragAndDropHandler(), true);
+        }
+        if(rowStyle==RowStyle.PAINTED) {
+            // set after the DropTarget so the TransferHandler does not replace it.
+            setTransferHandler(new PaintedRowTransferHandler());
+            addMouseListener(new PaintedChromeMouseHandler());
+            // painted rows are the application's own components, which don't tell the list when they change.
+            listLayout.setRowsReportChanges(false);
+            updateGutters();
+        }
+        selectionModel.addListSelectionListener(e -> updateChecks(e.getFirstIndex(), e.getLastIndex()));
         addMouseMotionListener(new MouseMotionAdapter() {
             @Override
             public void mouseDragged(MouseEvent e) {
@@ -40,39 +134,637 @@ public class InteractiveComponentList extends JPanel {
         });
     }
 
+    /**
+     * Give every row the same height.  Rows are then never measured for their height, which makes adding, removing
+     * and moving rows in long lists cheaper.
+     * @param height the height of every row in pixels, or -1 to use the preferred height of each row.
+     */
+    public void setFixedRowHeight(int height) {
+        listLayout.setFixedRowHeight(height);
+        revalidate();
+        repaint();
+    }
+
+    public int getFixedRowHeight() {
+        return listLayout.getFixedRowHeight();
+    }
+
+    public RowStyle getRowStyle() {
+        return rowStyle;
+    }
+
+    @Override
+    public void setFont(Font font) {
+        super.setFont(font);
+        // the handle is text, so its gutter depends on the font.
+        updateGutters();
+    }
+
+    /**
+     * Make room for the painted handle and checkbox on either side of the rows.
+     */
+    private void updateGutters() {
+        // also called by the JPanel constructor, before rowStyle is set.
+        if(rowStyle!=RowStyle.PAINTED) return;
+        listLayout.setGutters(chrome.getHandleWidth(this), showCheckboxes ? chrome.getCheckWidth() : 0);
+        revalidate();
+        repaint();
+    }
+
     /**
      * Enable or disable the selection checkboxes.
-     * @param showCheckboxes true to show checkboxes, false to hide them.
+     * @param showCheckboxes true to show checkboxes, false to hide them and clear the selection.
      */
     public void enableSelection(boolean showCheckboxes) {
     	this.showCheckboxes = showCheckboxes;
+        if(!showCheckboxes) selectionModel.clearSelection();
+        if(rowStyle==RowStyle.PAINTED) {
+            updateGutters();
+            return;
+        }
         for(int i=0;i<getComponentCount();++i) {
             showCheckboxForMiddle((InteractiveComponentListMiddle)getComponent(i));
         }
     }
 
+    /**
+     * @return the model that remembers which rows are selected.  It is kept up to date as rows are added, removed
+     * and moved.
+     */
+    public InteractiveComponentListSelectionModel getSelectionModel() {
+        return selectionModel;
+    }
+
+    /**
+     * Start a batch of changes.  Until the matching <code>endUpdate()</code> the list is not laid out and no
+     * {@link ListDataEvent} is fired.  Calls may be nested.
+     */
+    public void beginUpdate() {
+        if(updateDepth++ == 0) {
+            pendingChange.begin(getComponentCount());
+        }
+    }
+
+    /**
+     * Finish a batch of changes started with <code>beginUpdate()</code>.  When the outermost batch ends the list is
+     * laid out once and one {@link ListDataEvent} describing every change in the batch is fired.
+     * @throws IllegalStateException if there is no matching <code>beginUpdate()</code>.
+     */
+    public void endUpdate() {
+        if(updateDepth==0) throw new IllegalStateException("endUpdate() without beginUpdate()");
+        if(--updateDepth > 0) return;
+        try {
+            if(!pendingChange.isEmpty()) commitPendingChange();
+        } finally {
+            realizeDeferred();
+        }
+    }
+
+    /**
+     * Lay out the list and fire the event for the batch that just ended.
+     */
+    private void commitPendingChange() {
+        FlightRecorderEvents.Commit event = FlightRecorderEvents.ENABLED ? new FlightRecorderEvents.Commit() : null;
+        if(event!=null) event.begin();
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+
+        int count = getComponentCount();
+        int index1 = pendingChange.getIndex1(count);
+        if(!replaying) {
+            // only reorders can be undone.  anything else makes the history meaningless.
+            if(pendingChange.getPermutation()!=null) history.record(pendingChange.getIndex0(), pendingChange.getPermutation());
+            else history.clear();
+        }
+        revalidate();
+        repaint();
+        fireListDataEvent(pendingChange.getType(), pendingChange.getIndex0(), index1, pendingChange.getPermutation());
+
+        if(metrics.isEnabled()) {
+            metrics.count(InteractiveComponentListMetrics.Counter.COMMITS, 1);
+            metrics.record(InteractiveComponentListMetrics.Latency.COMMIT, System.nanoTime() - start);
+        }
+        if(event!=null && event.shouldCommit()) {
+            event.type = pendingChange.getType();
+            event.index0 = pendingChange.getIndex0();
+            event.index1 = index1;
+            event.rowCount = count;
+            event.commit();
+        }
+    }
+
+    /**
+     * Report counts and timings of drags, drops, batches, layout and paint to the given metrics.
+     * @param metrics the metrics, or {@link InteractiveComponentListMetrics#NONE} to measure nothing.
+     */
+    public void setMetrics(InteractiveComponentListMetrics metrics) {
+        this.metrics = Objects.requireNonNull(metrics);
+    }
+
+    public InteractiveComponentListMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public void doLayout() {
+        FlightRecorderEvents.Layout event = FlightRecorderEvents.ENABLED ? new FlightRecorderEvents.Layout() : null;
+        if(event!=null) event.begin();
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+
+        super.doLayout();
+
+        if(metrics.isEnabled()) {
+            metrics.count(InteractiveComponentListMetrics.Counter.LAYOUTS, 1);
+            metrics.count(InteractiveComponentListMetrics.Counter.ROWS_PLACED, listLayout.getLastPlacedCount());
+            metrics.record(InteractiveComponentListMetrics.Latency.LAYOUT, System.nanoTime() - start);
+        }
+        if(event!=null && event.shouldCommit()) {
+            event.rowsPlaced = listLayout.getLastPlacedCount();
+            event.rowCount = getComponentCount();
+            event.commit();
+        }
+    }
+
+    @Override
+    public void paint(Graphics g) {
+        FlightRecorderEvents.Paint event = FlightRecorderEvents.ENABLED ? new FlightRecorderEvents.Paint() : null;
+        if(event!=null) event.begin();
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+
+        super.paint(g);
+
+        if(metrics.isEnabled()) {
+            metrics.count(InteractiveComponentListMetrics.Counter.PAINTS, 1);
+            metrics.record(InteractiveComponentListMetrics.Latency.PAINT, System.nanoTime() - start);
+        }
+        if(event!=null && event.shouldCommit()) {
+            Rectangle clip = g.getClipBounds();
+            event.clipHeight = clip == null ? getHeight() : clip.height;
+            event.rowCount = getComponentCount();
+            event.commit();
+        }
+    }
+
+    /**
+     * A drag started from the handle of a row.
+     */
+    void dragStarted(int index) {
+        draggedIndex = index;
+        snapshots.begin();
+        if(dragRecorder!=null) dragRecorder.addStart(index, System.nanoTime());
+        if(metrics.isEnabled()) {
+            dragStartNanos = System.nanoTime();
+            metrics.count(InteractiveComponentListMetrics.Counter.DRAGS_STARTED, 1);
+        }
+        FlightRecorderEvents.DragStart event = FlightRecorderEvents.ENABLED ? new FlightRecorderEvents.DragStart() : null;
+        if(event!=null && event.shouldCommit()) {
+            event.row = index;
+            event.rowCount = getComponentCount();
+            event.commit();
+        }
+    }
+
+    /**
+     * @return true if a batch started with <code>beginUpdate()</code> has not ended yet.
+     */
+    public boolean isUpdating() {
+        return updateDepth > 0;
+    }
+
     @Override
     protected void addImpl(Component comp, Object constraints, int index) {
-        if(!(comp instanceof InteractiveComponentListMiddle)) {
+        if(rowStyle==RowStyle.COMPONENTS && !(comp instanceof InteractiveComponentListMiddle)) {
             comp = createInnerPanel(comp);
         }
-        super.addImpl(comp, constraints,index);
+        beginUpdate();
+        try {
+            super.addImpl(comp, constraints, index);
+            rowAdded(comp, index < 0 ? getComponentCount()-1 : index);
+        } finally {
+            endUpdate();
+        }
+    }
+
+    /**
+     * Keep the row index, offsets, filter, selection and pending change in step with a row that is now a child.
+     * Call inside a batch.
+     */
+    private void rowAdded(Component comp, int row) {
+        rowIndex.added(comp, getInnerComponent(comp), row);
+        listLayout.rowAdded(comp);
+        // a row that is being moved keeps its height until the next layout.
+        rowOffsets.insert(row, comp.getHeight());
+        if(filter!=null) applyFilter(row);
+        selectionModel.insert(row,1);
+        if(comp instanceof InteractiveComponentListMiddle middle) {
+            // the row may come from a list that shows its checkboxes differently.
+            showCheckboxForMiddle(middle);
+            if(middle.getCheck().isSelected()) {
+                if(showCheckboxes) selectionModel.setSelected(row,true);
+                else middle.getCheck().setSelected(false);
+            }
+        }
+        pendingChange.added(row,1);
+    }
+
+    /**
+     * Add a row now and build its component later.  The row holds an empty placeholder of the estimated height until
+     * the supplier has run on a background thread, and can be moved, selected and removed like any other row in the
+     * meantime.  When the component is ready it replaces the placeholder in the same row, which keeps its index and
+     * selection, and a {@link ListDataEvent#CONTENTS_CHANGED} is fired for that row.  Rows in and near the visible
+     * part of the list are built first.  If the supplier throws, the placeholder stays.
+     * @param supplier builds the component.  It is called on a background thread, so it may not touch other
+     *                 components that are showing.
+     * @param estimatedHeight the height of the placeholder
+     * @return the placeholder, which <code>indexOf</code> and <code>remove</code> accept until it is replaced.
+     */
+    public Component add(Supplier<? extends Component> supplier, int estimatedHeight) {
+        LazyRowLoader.Placeholder placeholder = new LazyRowLoader.Placeholder(Objects.requireNonNull(supplier), estimatedHeight);
+        add(placeholder);
+        loader.enqueue(placeholder);
+        return placeholder;
+    }
+
+    /**
+     * @param index the index of a row
+     * @return false if the row still holds a placeholder from <code>add(Supplier, int)</code>.
+     */
+    public boolean isRealized(int index) {
+        return !(getInnerComponent(index) instanceof LazyRowLoader.Placeholder);
+    }
+
+    /**
+     * @return the number of components from <code>add(Supplier, int)</code> that have not replaced their placeholder
+     * yet.
+     */
+    public int getLoadingCount() {
+        return loader.getPendingCount() + deferredRealizations.size();
+    }
+
+    LazyRowLoader getLoader() {
+        return loader;
+    }
+
+    /**
+     * Put a component built in the background into the row of its placeholder.  Must be called on the EDT.
+     * @param placeholder the placeholder
+     * @param comp the component that replaces it
+     */
+    void realize(LazyRowLoader.Placeholder placeholder, Component comp) {
+        int index = indexOf(placeholder);
+        if(index<0) return;
+        if(isUpdating()) {
+            // indexes in a batch are not final yet.  endUpdate() puts it in.
+            deferredRealizations.put(placeholder, comp);
+            return;
+        }
+        synchronized (getTreeLock()) {
+            Component row = getComponent(index);
+            if(row instanceof InteractiveComponentListMiddle middle) {
+                middle.setInnerComponent(comp);
+                listLayout.rowChanged(middle);
+            } else {
+                // bypass our own remove and add.  the row keeps its offsets, selection and place in the history.
+                hiddenByFilter.remove(row);
+                listLayout.rowRemoved(row);
+                super.remove(index);
+                super.addImpl(comp, null, index);
+                listLayout.rowAdded(comp);
+            }
+            rowIndex.removed(row, placeholder, index);
+            rowIndex.added(getComponent(index), comp, index);
+            rowOffsets.remeasure(index);
+            if(filter!=null) applyFilter(index);
+        }
         revalidate();
         repaint();
+        fireListDataEvent(ListDataEvent.CONTENTS_CHANGED, index, index, null);
+    }
+
+    private void realizeDeferred() {
+        if(deferredRealizations.isEmpty()) return;
+        List<Map.Entry<LazyRowLoader.Placeholder, Component>> ready = new ArrayList<>(deferredRealizations.entrySet());
+        deferredRealizations.clear();
+        for(Map.Entry<LazyRowLoader.Placeholder, Component> e : ready) realize(e.getKey(), e.getValue());
+    }
+
+    /**
+     * Add many components to the end of the list with one layout pass and one {@link ListDataEvent}.
+     * @param components the components to add
+     */
+    public void addAll(Collection<? extends Component> components) {
+        addAll(getComponentCount(), components);
+    }
+
+    /**
+     * Add many components with one layout pass and one {@link ListDataEvent}.
+     * @param index the index of the first new row
+     * @param components the components to add, in order
+     */
+    public void addAll(int index, Collection<? extends Component> components) {
+        beginUpdate();
+        try {
+            for(Component c : components) {
+                add(c, index++);
+            }
+        } finally {
+            endUpdate();
+        }
+    }
+
+    /**
+     * Remove many components with one layout pass and one {@link ListDataEvent}.
+     * Each item may be a row or the component wrapped by a row.
+     * @param components the components to remove
+     */
+    public void removeAll(Collection<? extends Component> components) {
+        if(components.isEmpty()) return;
+        int[] rows = new int[components.size()];
+        int count = 0;
+        for(Component c : components) {
+            int i = indexOf(c);
+            if(i>=0) rows[count++] = i;
+        }
+        Arrays.sort(rows, 0, count);
+        beginUpdate();
+        try {
+            synchronized (getTreeLock()) {
+                // from the bottom up, so the rows still to go keep their index.
+                for(int j=count-1;j>=0;--j) {
+                    if(j==count-1 || rows[j]!=rows[j+1]) remove(rows[j]);
+                }
+            }
+        } finally {
+            endUpdate();
+        }
+    }
+
+    /**
+     * Replace every row in the list with the given components, with one layout pass and one {@link ListDataEvent}.
+     * @param components the new contents of the list
+     */
+    public void replaceAll(Collection<? extends Component> components) {
+        beginUpdate();
+        try {
+            removeAll();
+            addAll(components);
+        } finally {
+            endUpdate();
+        }
     }
 
     @Override
     public void remove(Component comp) {
         synchronized (getTreeLock()) {
-            for(int i=0;i<getComponentCount();++i) {
-                var p = (InteractiveComponentListMiddle)getComponent(i);
-                if(p == comp || p.getInnerComponent() == comp) {
-                    super.remove(i);
-                    revalidate();
-                    repaint();
-                    return;
-                }
-            }
+            int i = indexOf(comp);
+            if(i>=0) remove(i);
+        }
+    }
+
+    /**
+     * Find a row without scanning the list.
+     * @param comp a row, or the component wrapped by a row
+     * @return the index of the row, or -1 if <code>comp</code> is not in this list.
+     */
+    public int indexOf(Component comp) {
+        return rowIndex.indexOf(this, comp);
+    }
+
+    /**
+     * @param comp a row, or the component wrapped by a row
+     * @return true if <code>comp</code> is in this list.
+     */
+    public boolean contains(Component comp) {
+        return rowIndex.contains(comp);
+    }
+
+    /**
+     * Show only the rows whose component matches a filter.  Hidden rows stay in the list with their index and their
+     * selection, and take no space.  They are made invisible, so they can't take the focus, and made visible again
+     * when the filter shows them or they leave the list.  Every row is tested once and the list is laid out once.  Rows added later are
+     * tested as they are added.  No {@link ListDataEvent} is fired because no row was added, removed or moved.
+     * @param filter tested with the component wrapped by each row, or null to show every row.
+     */
+    public void setFilter(Predicate<? super Component> filter) {
+        this.filter = filter;
+        boolean changed = false;
+        for(int i=0;i<getComponentCount();++i) {
+            changed |= applyFilter(i);
+        }
+        if(changed) {
+            revalidate();
+            repaint();
+        }
+    }
+
+    public Predicate<? super Component> getFilter() {
+        return filter;
+    }
+
+    /**
+     * Test one row against the filter again after whatever the filter looks at has changed.  No other row is tested,
+     * and only this row is measured again.
+     * @param comp a row, or the component wrapped by a row
+     * @return true if the row is shown, false if it is hidden or not in this list.
+     */
+    public boolean refilter(Component comp) {
+        int index = indexOf(comp);
+        if(index<0) return false;
+        if(applyFilter(index)) {
+            revalidate();
+            repaint();
+        }
+        return !rowOffsets.isFiltered(index);
+    }
+
+    /**
+     * @return true if the row was hidden or shown by this test.
+     */
+    private boolean applyFilter(int index) {
+        boolean hide = filter!=null && !filter.test(getInnerComponent(index));
+        Component row = getComponent(index);
+        if(hide) {
+            // a row the application hid stays hidden when the filter shows it again.
+            if(row.isVisible() && hiddenByFilter.add(row)) row.setVisible(false);
+        } else if(hiddenByFilter.remove(row)) {
+            row.setVisible(true);
+        }
+        if(!rowOffsets.setFiltered(index, hide)) return false;
+        listLayout.rowChanged(row);
+        return true;
+    }
+
+    /**
+     * Measure a row again on the next layout.  Rows of a {@link RowStyle#COMPONENTS} list, and painted rows that are
+     * shown or hidden or change one of their own bound properties, are measured again without this.  Call it when
+     * something deeper inside a painted row changes its size.
+     * @param comp a row, or the component inside a row
+     */
+    public void remeasure(Component comp) {
+        int index = indexOf(comp);
+        if(index<0) return;
+        listLayout.rowChanged(getComponent(index));
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * A row was invalidated, shown or hidden.  {@link InteractiveComponentListMiddle} calls this so that the next
+     * layout measures only the rows that changed.
+     */
+    void rowChanged(Component row) {
+        listLayout.rowChanged(row);
+        snapshots.invalidate(row);
+    }
+
+    /**
+     * Something inside a row changed that may change how it looks, but not its size.  Its picture for drags is taken
+     * again.
+     */
+    void rowContentChanged(Component row) {
+        snapshots.invalidate(row);
+    }
+
+    /**
+     * @return the number of rows not hidden by the filter.
+     */
+    public int getShownRowCount() {
+        return rowOffsets.getUnfilteredCount();
+    }
+
+    /**
+     * @param index the index of a row
+     * @return the index of the row counting only the rows shown, or -1 if the filter hides it.
+     */
+    public int convertRowIndexToView(int index) {
+        return rowOffsets.toViewIndex(index);
+    }
+
+    /**
+     * @param viewIndex the index of a row counting only the rows shown
+     * @return the index of the row among all rows.
+     */
+    public int convertRowIndexToModel(int viewIndex) {
+        return rowOffsets.toModelIndex(viewIndex);
+    }
+
+    /**
+     * Queue a component to be added to the end of the list.  Safe to call from any thread.  Queued changes are applied
+     * on the Event Dispatch Thread once per frame, in the order they were submitted, as one batch with one layout and
+     * one {@link ListDataEvent}.
+     * @param comp the component to add
+     * @return false if too many changes are already waiting and this one was not queued.  Try again later.
+     */
+    public boolean submitAdd(Component comp) {
+        return mutations.submit(() -> add(comp));
+    }
+
+    /**
+     * Queue a component to be added at an index.  Safe to call from any thread.
+     * @param comp the component to add
+     * @param index the index of the new row, limited to the size of the list when the change is applied.
+     * @return false if too many changes are already waiting and this one was not queued.
+     */
+    public boolean submitAdd(Component comp, int index) {
+        return mutations.submit(() -> add(comp, Math.max(0, Math.min(index, getComponentCount()))));
+    }
+
+    /**
+     * Queue a component to be removed.  Safe to call from any thread.  Nothing happens if the component is not in the
+     * list when the change is applied.
+     * @param comp a row, or the component wrapped by a row
+     * @return false if too many changes are already waiting and this one was not queued.
+     */
+    public boolean submitRemove(Component comp) {
+        return mutations.submit(() -> remove(comp));
+    }
+
+    /**
+     * Queue a component to be moved.  Safe to call from any thread.  Nothing happens if the component is not in the
+     * list when the change is applied.
+     * @param comp a row, or the component wrapped by a row
+     * @param to the index of the row after the move, limited to the size of the list when the change is applied.
+     * @return false if too many changes are already waiting and this one was not queued.
+     */
+    public boolean submitMove(Component comp, int to) {
+        return mutations.submit(() -> {
+            int from = indexOf(comp);
+            if(from>=0) moveRow(from, Math.max(0, Math.min(to, getComponentCount()-1)));
+        });
+    }
+
+    /**
+     * @return the number of submitted changes that have not been applied yet.  Safe to call from any thread.
+     */
+    public int getPendingSubmitCount() {
+        return mutations.getPendingCount();
+    }
+
+    /**
+     * @param capacity the most submitted changes that may wait to be applied before <code>submit</code> methods
+     *                 start returning false.
+     */
+    public void setSubmitCapacity(int capacity) {
+        mutations.setCapacity(capacity);
+    }
+
+    public int getSubmitCapacity() {
+        return mutations.getCapacity();
+    }
+
+    /**
+     * Apply every submitted change now instead of waiting for the next frame.  Must be called on the EDT.
+     */
+    void flushSubmitted() {
+        mutations.drain();
+    }
+
+    @Override
+    public void remove(int index) {
+        beginUpdate();
+        try {
+            Component row = getComponent(index);
+            super.remove(index);
+            rowRemoved(row, index);
+        } finally {
+            endUpdate();
+        }
+    }
+
+    /**
+     * Keep the loader, snapshots, row index, offsets, selection and pending change in step with a row that is no
+     * longer a child.  Call inside a batch.
+     */
+    private void rowRemoved(Component row, int index) {
+        if(getInnerComponent(row) instanceof LazyRowLoader.Placeholder placeholder) {
+            loader.cancel(placeholder);
+            deferredRealizations.remove(placeholder);
+        }
+        snapshots.invalidate(row);
+        if(hiddenByFilter.remove(row)) row.setVisible(true);
+        listLayout.rowRemoved(row);
+        rowIndex.removed(row, getInnerComponent(row), index);
+        rowOffsets.remove(index);
+        selectionModel.remove(index,1);
+        pendingChange.removed(index,1);
+    }
+
+    @Override
+    public void removeAll() {
+        int count = getComponentCount();
+        beginUpdate();
+        try {
+            for(Component row : getComponents()) listLayout.rowRemoved(row);
+            super.removeAll();
+            loader.cancelAll();
+            deferredRealizations.clear();
+            for(Component row : hiddenByFilter) row.setVisible(true);
+            hiddenByFilter.clear();
+            rowIndex.clear();
+            rowOffsets.clear();
+            selectionModel.remove(0,count);
+            pendingChange.removed(0,count);
+        } finally {
+            endUpdate();
         }
     }
 
@@ -85,57 +777,600 @@ public class InteractiveComponentList extends JPanel {
         }
     }
 
+    /**
+     * Wrap a component.  The handle and checkbox act on whichever list the row is in, so that rows can be moved from
+     * one list to another.
+     */
     private InteractiveComponentListMiddle createInnerPanel(Component component) {
         InteractiveComponentListMiddle panel = new InteractiveComponentListMiddle(component);
         panel.getHandle().addMouseListener(new MouseAdapter() {
             public void mousePressed(MouseEvent e) {
-                JComponent c = (JComponent) e.getSource();
-                TransferHandler handler = ((JPanel) c.getParent()).getTransferHandler();
-                if (handler != null) {
-                    handler.exportAsDrag((JComponent) c.getParent(), e, TransferHandler.MOVE);
-                    draggedIndex = getComponentZOrder(c.getParent());
+                TransferHandler handler = panel.getTransferHandler();
+                if (handler != null && panel.getParent() instanceof InteractiveComponentList list) {
+                    handler.exportAsDrag(panel, e, TransferHandler.MOVE);
+                    list.dragStarted(list.indexOf(panel));
                 }
             }
         });
 
+        panel.getCheck().addActionListener(e -> {
+            if(!(panel.getParent() instanceof InteractiveComponentList list)) return;
+            int index = list.indexOf(panel);
+            if(index<0) return;
+            if((e.getModifiers() & ActionEvent.SHIFT_MASK) != 0) {
+                list.extendSelection(index);
+            } else {
+                list.selectionModel.setSelected(index, panel.getCheck().isSelected());
+            }
+        });
+
         showCheckboxForMiddle(panel);
 
         return panel;
     }
 
+    /**
+     * Select every shown row from the anchor to <code>index</code>, as with a shift-click.  Rows hidden by the filter
+     * in between are left as they are.
+     */
+    private void extendSelection(int index) {
+        int anchor = selectionModel.getAnchorSelectionIndex();
+        if(anchor<0 || anchor>=getComponentCount() || getShownRowCount()==getComponentCount()) {
+            selectionModel.extendSelection(index);
+            return;
+        }
+        int hi = Math.max(anchor,index);
+        for(int i=Math.min(anchor,index);i<=hi;++i) {
+            if(rowOffsets.isFiltered(i)) continue;
+            int j = i;
+            while(j<hi && !rowOffsets.isFiltered(j+1)) j++;
+            selectionModel.addSelectionInterval(i,j);
+            i = j;
+        }
+    }
+
     private void showCheckboxForMiddle(InteractiveComponentListMiddle p) {
         p.getCheck().setVisible(showCheckboxes);
-        if(!showCheckboxes) p.getCheck().setSelected(false);
+    }
+
+    /**
+     * Make the checkboxes of the given rows match the selection model.
+     */
+    private void updateChecks(int first, int last) {
+        last = Math.min(last, getComponentCount()-1);
+        first = Math.max(0,first);
+        if(first>last) return;
+        if(rowStyle==RowStyle.PAINTED) {
+            int top = getInsets().top;
+            int y0 = top + rowOffsets.getTop(first);
+            repaint(0, y0, getWidth(), top + rowOffsets.getTop(last+1) - y0);
+            return;
+        }
+        for(int i=Math.max(0,first);i<=last;++i) {
+            ((InteractiveComponentListMiddle)getComponent(i)).getCheck().setSelected(selectionModel.isSelected(i));
+        }
+    }
+
+    DropLineIndicator getLineIndicator() {
+        return lineIndicator;
     }
 
     public void updateLineIndicator(int mouseY) {
-        lineY = mouseY;
-        repaint();
+        lineIndicator.moveTo(mouseY);
     }
 
     @Override
-    protected void paintChildren(Graphics g) {
-        super.paintChildren(g);
-        if (lineY >= 0) {
-            g.setColor(Color.BLUE);
-            g.fillRect(0, lineY - 2, getWidth(), 4);
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        if(rowStyle==RowStyle.PAINTED) paintChrome(g);
+    }
+
+    /**
+     * Paint the handle and checkbox of every row inside the clip.
+     */
+    private void paintChrome(Graphics g) {
+        int count = getComponentCount();
+        if(count==0 || rowOffsets.size()!=count) return;
+        Insets insets = getInsets();
+        Rectangle clip = g.getClipBounds();
+        if(clip==null) clip = new Rectangle(0,0,getWidth(),getHeight());
+
+        int first = clip.y <= insets.top ? 0 : getRowIndexAt(clip.y);
+        if(first<0) return;
+        int last = getRowIndexAt(clip.y + clip.height - 1);
+        if(last<0) last = count-1;
+
+        int handleWidth = listLayout.getLeftGutter();
+        int checkWidth = listLayout.getRightGutter();
+        int checkX = getWidth() - insets.right - checkWidth;
+        for(int i=first;i<=last;++i) {
+            if(!rowOffsets.isVisible(i)) continue;
+            int y = insets.top + rowOffsets.getTop(i);
+            int h = rowOffsets.getHeight(i);
+            chrome.paintHandle(g, this, insets.left, y, handleWidth, h);
+            if(showCheckboxes) chrome.paintCheck(g, checkX, y, checkWidth, h, selectionModel.isSelected(i));
         }
     }
 
+    @Override
+    protected void paintChildren(Graphics g) {
+        if(snapshots.isActive()) snapshots.paintRows(g);
+        else super.paintChildren(g);
+        lineIndicator.paint(g);
+    }
+
+    /**
+     * While a drag is in progress, paint each row from a picture taken the first time it is painted, instead of
+     * painting the row again every time the drop line moves or the list scrolls.  A row that changes size, is
+     * invalidated, or changes a bound property of its own or of its component gets a new picture.  A row that only
+     * repaints keeps its picture unless <code>setDragSnapshotRepaintTracking(true)</code>.  Worth turning on when rows
+     * are costly to paint.
+     * @param enabled true to paint rows from pictures during drags.
+     */
+    public void setDragSnapshotsEnabled(boolean enabled) {
+        snapshots.setEnabled(enabled);
+    }
+
+    public boolean isDragSnapshotsEnabled() {
+        return snapshots.isEnabled();
+    }
+
+    /**
+     * Take a new picture of a row whenever anything inside it asks to be repainted during a drag, such as a row that
+     * animates.  To hear about every repaint the list replaces the application's {@link RepaintManager} with its own
+     * for the length of each drag, which also stops Swing painting through a buffer strategy meanwhile.  If the
+     * application has installed its own {@link RepaintManager} nothing is replaced and repaints are not tracked.
+     * @param track true to track every repaint inside the rows during drags.
+     */
+    public void setDragSnapshotRepaintTracking(boolean track) {
+        snapshots.setTrackRepaints(track);
+    }
+
+    public boolean isDragSnapshotRepaintTracking() {
+        return snapshots.isTrackingRepaints();
+    }
+
+    /**
+     * @param bytes roughly how much memory the pictures taken during a drag may use.  The least recently painted are
+     *              dropped first.
+     */
+    public void setSnapshotMemoryLimit(long bytes) {
+        snapshots.setMemoryLimit(bytes);
+    }
+
+    public long getSnapshotMemoryLimit() {
+        return snapshots.getMemoryLimit();
+    }
+
+    RowSnapshotCache getSnapshots() {
+        return snapshots;
+    }
+
+    /**
+     * Drop the dragged row at the row boundary nearest <code>lineY</code>.  If the dragged row is selected, every
+     * selected row that is not hidden by the filter moves with it as one block.
+     * @param lineY the y coordinate of the drop line, relative to this list.
+     */
     public void moveDroppableHere(int lineY) {
+        FlightRecorderEvents.Drop event = FlightRecorderEvents.ENABLED ? new FlightRecorderEvents.Drop() : null;
+        if(event!=null) event.begin();
+        long start = metrics.isEnabled() ? System.nanoTime() : 0;
+        int from = draggedIndex;
+
+        int moved = dropDragged(lineY);
+
+        if(metrics.isEnabled()) {
+            long now = System.nanoTime();
+            metrics.count(InteractiveComponentListMetrics.Counter.DROPS, 1);
+            metrics.count(InteractiveComponentListMetrics.Counter.ROWS_MOVED, moved);
+            metrics.record(InteractiveComponentListMetrics.Latency.DROP, now - start);
+            if(dragStartNanos != 0) metrics.record(InteractiveComponentListMetrics.Latency.DRAG, now - dragStartNanos);
+            dragStartNanos = 0;
+        }
+        if(event!=null && event.shouldCommit()) {
+            event.from = from;
+            event.to = draggedIndex;
+            event.rowsMoved = moved;
+            event.rowCount = getComponentCount();
+            event.commit();
+        }
+    }
+
+    /**
+     * @return the number of rows moved.
+     */
+    private int dropDragged(int lineY) {
         int dropIndex = getDropIndex(new Point(0, lineY));
+        int[] selected = getDraggedBlock();
+        if (selected.length > 1) {
+            int above = 0;
+            int dragged = 0;
+            for (int i = 0; i < selected.length; ++i) {
+                if (selected[i] < dropIndex) above++;
+                if (selected[i] == draggedIndex) dragged = i;
+            }
+            int to = dropIndex - above;
+            moveRows(selected, to);
+            draggedIndex = to + dragged;
+            return selected.length;
+        }
         // Adjust dropIndex if necessary
         dropIndex = dropIndex > draggedIndex ? dropIndex - 1 : dropIndex;
         if (dropIndex != draggedIndex) {
-            Component draggedComponent = getComponent(draggedIndex);
-            remove(draggedComponent);
-            add(draggedComponent, dropIndex);
-            revalidate();
-            repaint();
+            moveRow(draggedIndex, dropIndex);
             draggedIndex = dropIndex; // Update draggedIndex
+            return 1;
+        }
+        return 0;
+    }
+
+    /**
+     * @return the shown, selected rows that move with the dragged row, or an empty array if it moves alone.
+     */
+    private int[] getDraggedBlock() {
+        if (!selectionModel.isSelected(draggedIndex) || selectionModel.getSelectedCount() < 2) return new int[0];
+        int[] selected = selectionModel.getSelectedIndices();
+        if (getShownRowCount() == getComponentCount()) return selected;
+        return Arrays.stream(selected).filter(i -> !rowOffsets.isFiltered(i)).toArray();
+    }
+
+    /**
+     * Move one row to a new index.  The row is not removed from the list, so its components are not re-created, keep
+     * their focus, and <code>add()</code> is not called again.
+     * @param from the current index of the row
+     * @param to the index of the row after the move
+     * @throws IndexOutOfBoundsException if either index is not a row.
+     */
+    public void moveRow(int from, int to) {
+        int count = getComponentCount();
+        Objects.checkIndex(from, count);
+        Objects.checkIndex(to, count);
+        if (from == to) return;
+
+        beginUpdate();
+        try {
+            relocate(from, to);
+        } finally {
+            endUpdate();
+        }
+    }
+
+    /**
+     * Move many rows as one block.  The rows keep their order and end up next to each other, the first of them at
+     * <code>to</code>.  Every other row keeps its order.  The list is laid out once and fires one
+     * {@link InteractiveComponentListEvent} that describes the permutation.
+     * @param indices the rows to move, in any order
+     * @param to the index of the first moved row after the move, from 0 to the number of rows not moved.
+     * @throws IndexOutOfBoundsException if an index is not a row or <code>to</code> is out of range.
+     * @throws IllegalArgumentException if an index appears twice.
+     */
+    public void moveRows(int[] indices, int to) {
+        int count = getComponentCount();
+        int[] rows = indices.clone();
+        Arrays.sort(rows);
+        for (int i = 0; i < rows.length; ++i) {
+            Objects.checkIndex(rows[i], count);
+            if (i > 0 && rows[i] == rows[i-1]) throw new IllegalArgumentException("index " + rows[i] + " appears twice");
+        }
+        int k = rows.length;
+        Objects.checkIndex(to, count - k + 1);
+        if (k == 0) return;
+
+        // every row that moves is between lo and hi.
+        int hi = Math.max(rows[k-1], to + k - 1);
+        beginUpdate();
+        try {
+            // gather the block at hi, keeping its order...
+            for (int j = 0; j < k; ++j) relocate(rows[j] - j, hi);
+            // ...then put it down at to.  each row of the block moves at most twice.
+            for (int j = 0; j < k; ++j) relocate(hi - k + 1 + j, to + j);
+        } finally {
+            endUpdate();
+        }
+    }
+
+    /**
+     * Move rows to another list.  The rows themselves move, with their wrappers, handles, checkboxes and selection;
+     * nothing is built again, and they are not taken out of the component hierarchy on the way, so a row keeps its
+     * focus and anything else tied to the hierarchy.  Each list is changed in one batch, so each fires one event.
+     * <code>target</code> fires an {@link ListDataEvent#INTERVAL_ADDED}.  This list fires an
+     * {@link ListDataEvent#INTERVAL_REMOVED} if the rows were next to each other, or else a
+     * {@link ListDataEvent#CONTENTS_CHANGED} from the first row moved to the old end of the list.
+     * @param target the list to move the rows to.  If it is this list the rows are moved as by <code>moveRows</code>.
+     * @param indices the rows to move, in any order.  They keep their order.
+     * @param targetIndex the index in <code>target</code>, before the move, where the first row goes.
+     * @throws IndexOutOfBoundsException if an index is not a row or <code>targetIndex</code> is out of range.
+     * @throws IllegalArgumentException if an index appears twice or <code>target</code> has a different
+     * {@link RowStyle}.
+     */
+    public void transferTo(InteractiveComponentList target, int[] indices, int targetIndex) {
+        Objects.requireNonNull(target);
+        int count = getComponentCount();
+        int[] rows = indices.clone();
+        Arrays.sort(rows);
+        for (int i = 0; i < rows.length; ++i) {
+            Objects.checkIndex(rows[i], count);
+            if (i > 0 && rows[i] == rows[i-1]) throw new IllegalArgumentException("index " + rows[i] + " appears twice");
+        }
+        Objects.checkIndex(targetIndex, target.getComponentCount() + 1);
+        if (target == this) {
+            int above = 0;
+            while (above < rows.length && rows[above] < targetIndex) above++;
+            moveRows(rows, targetIndex - above);
+            return;
+        }
+        if (target.rowStyle != rowStyle) throw new IllegalArgumentException("target has a different RowStyle");
+        if (rows.length == 0) return;
+
+        beginUpdate();
+        target.beginUpdate();
+        try {
+            synchronized (getTreeLock()) {
+                for (int j = 0; j < rows.length; ++j) {
+                    // the rows above this one have gone already.
+                    int from = rows[j] - j;
+                    int to = targetIndex + j;
+                    Component row = getComponent(from);
+                    boolean selected = selectionModel.isSelected(from);
+                    LazyRowLoader.Placeholder placeholder = getInnerComponent(row) instanceof
+                            LazyRowLoader.Placeholder p ? p : null;
+                    // a component that is being built goes to the target when it is done.
+                    boolean building = placeholder != null && loader.handOver(placeholder, target.loader);
+                    Component built = placeholder != null ? deferredRealizations.get(placeholder) : null;
+                    // setComponentZOrder takes the row from this list without removeNotify()/addNotify().
+                    target.setComponentZOrder(row, to);
+                    rowRemoved(row, from);
+                    target.rowAdded(row, to);
+                    // a painted row has no checkbox to carry its selection.
+                    if (selected && target.showCheckboxes) target.selectionModel.setSelected(to, true);
+                    if (placeholder != null && !building) {
+                        // a component that is already built goes in when the target's batch ends.
+                        if (built != null) target.deferredRealizations.put(placeholder, built);
+                        else target.loader.enqueue(placeholder);
+                    }
+                }
+            }
+        } finally {
+            try {
+                endUpdate();
+            } finally {
+                target.endUpdate();
+            }
+        }
+    }
+
+    /**
+     * A row was dropped on this list at <code>lineY</code>.  If it was dragged from another list it moves here, with
+     * every selected row of that list if it is selected.
+     * @param row the dropped row, or null for the row being dragged in this list.
+     * @param lineY the y coordinate of the drop line, relative to this list.
+     * @return false if the row is no longer in a list this list can take it from.
+     */
+    boolean dropRow(Component row, int lineY) {
+        if (row == null || row.getParent() == this) {
+            if (row != null) draggedIndex = indexOf(row);
+            if (draggedIndex < 0) return false;
+            moveDroppableHere(lineY);
+            if (dragRecorder != null) dragRecorder.addDrop(lineY, draggedIndex, System.nanoTime());
+            return true;
+        } else if (row.getParent() instanceof InteractiveComponentList source && source.rowStyle == rowStyle) {
+            int index = source.indexOf(row);
+            if (index < 0) return false;
+            // the source's drag ends here; its exportDone would tell the list the row is in by then.
+            source.dragFinished();
+            source.draggedIndex = index;
+            int[] block = source.getDraggedBlock();
+            source.transferTo(this, block.length > 1 ? block : new int[]{index}, getDropIndex(new Point(0, lineY)));
+            source.draggedIndex = -1;
+            if (source.dragRecorder != null) source.dragRecorder.addTransfer(lineY, index, getName(), System.nanoTime());
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Accept a drop and read the row it carries.
+     * @return the row, or null if the drop does not carry a row.
+     */
+    static Component getDroppedRow(DropTargetDropEvent dtde) {
+        try {
+            if (!dtde.isDataFlavorSupported(InteractiveComponentListMiddle.PANEL_FLAVOR)) return null;
+            dtde.acceptDrop(DnDConstants.ACTION_MOVE);
+            return (Component) dtde.getTransferable().getTransferData(InteractiveComponentListMiddle.PANEL_FLAVOR);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Sort the rows by their components.  The sort is stable.  Only the rows that are out of place move: the longest
+     * run of rows that are already in order stays where it is, and every other row moves once, so a list that is
+     * nearly sorted costs nearly nothing.  The list is laid out once and fires one
+     * {@link InteractiveComponentListEvent} that describes the permutation.
+     * @param comparator compares the components wrapped by the rows
+     */
+    public void sort(Comparator<? super Component> comparator) {
+        int count = getComponentCount();
+        Component[] inner = new Component[count];
+        Integer[] order = new Integer[count];
+        for (int i = 0; i < count; ++i) {
+            inner[i] = getInnerComponent(i);
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> comparator.compare(inner[a], inner[b]));
+        int[] newOrder = new int[count];
+        for (int i = 0; i < count; ++i) newOrder[i] = order[i];
+        reorder(newOrder);
+    }
+
+    /**
+     * Put every row in a new order with the fewest moves.  The list is laid out once and fires one
+     * {@link InteractiveComponentListEvent} that describes the permutation.
+     * @param newOrder for each index after the reorder, the current index of the row that goes there.
+     * @throws IllegalArgumentException if <code>newOrder</code> is not a permutation of every row.
+     */
+    public void reorder(int[] newOrder) {
+        int count = getComponentCount();
+        if (newOrder.length != count) {
+            throw new IllegalArgumentException("expected " + count + " indexes, got " + newOrder.length);
+        }
+        reorder(0, newOrder);
+    }
+
+    /**
+     * Put the rows from <code>index0</code> to <code>index0+newOrder.length-1</code> in a new order.
+     * @param newOrder for each of those indexes after the reorder, the current index of the row that goes there.
+     */
+    private void reorder(int index0, int[] newOrder) {
+        int n = newOrder.length;
+        // rank[i] is where the row now at index0+i should end up.
+        int[] rank = new int[n];
+        Arrays.fill(rank, -1);
+        for (int i = 0; i < n; ++i) {
+            int from = newOrder[i] - index0;
+            Objects.checkIndex(from, n);
+            if (rank[from] >= 0) throw new IllegalArgumentException("index " + newOrder[i] + " appears twice");
+            rank[from] = i;
+        }
+        boolean[] stays = longestIncreasingRun(rank);
+        Component[] rows = new Component[n];
+        for (int i = 0; i < n; ++i) rows[i] = getComponent(index0 + i);
+
+        beginUpdate();
+        try {
+            // every row that stays, and every row already moved, is in its final order relative to the others.  put
+            // each moving row right after the row that should precede it, which is always one of those.
+            for (int t = 0; t < n; ++t) {
+                if (stays[t]) continue;
+                int from = indexOf(rows[newOrder[t] - index0]);
+                int to = index0;
+                if (t > 0) {
+                    int previous = indexOf(rows[newOrder[t - 1] - index0]);
+                    to = from < previous ? previous : previous + 1;
+                }
+                relocate(from, to);
+            }
+        } finally {
+            endUpdate();
+        }
+    }
+
+    /**
+     * Undo the most recent reorder: a drag, <code>moveRow</code>, <code>moveRows</code>, <code>sort</code>,
+     * <code>reorder</code>, or a batch of those.  The rows are put back with one batch and one
+     * {@link InteractiveComponentListEvent}.  Adding or removing rows forgets every reorder before it.
+     * @return false if there was nothing to undo.
+     */
+    public boolean undo() {
+        ReorderHistory.Entry entry = history.undo();
+        if (entry == null) return false;
+        replay(entry.index0, entry.getNewIndexOf());
+        return true;
+    }
+
+    /**
+     * Redo the most recently undone reorder, with one batch and one {@link InteractiveComponentListEvent}.  Any other
+     * reorder forgets what could be redone.
+     * @return false if there was nothing to redo.
+     */
+    public boolean redo() {
+        ReorderHistory.Entry entry = history.redo();
+        if (entry == null) return false;
+        replay(entry.index0, entry.getOldIndexOf());
+        return true;
+    }
+
+    private void replay(int index0, int[] newOrder) {
+        replaying = true;
+        try {
+            reorder(index0, newOrder);
+        } finally {
+            replaying = false;
+        }
+    }
+
+    public boolean canUndo() {
+        return history.canUndo();
+    }
+
+    public boolean canRedo() {
+        return history.canRedo();
+    }
+
+    /**
+     * Forget every reorder that could be undone or redone.
+     */
+    public void clearUndoHistory() {
+        history.clear();
+    }
+
+    /**
+     * Each reorder is remembered by the rows that moved, not by the whole list.  Once the history needs more than
+     * this much memory the oldest reorders are forgotten.
+     * @param bytes roughly how much memory the undo history may use, or 0 to keep no history.
+     */
+    public void setUndoMemoryLimit(long bytes) {
+        history.setMemoryLimit(bytes);
+    }
+
+    public long getUndoMemoryLimit() {
+        return history.getMemoryLimit();
+    }
 
-            fireMoveEvent(draggedIndex,dropIndex);
+    /**
+     * @param sequence distinct values from 0 to <code>sequence.length-1</code>
+     * @return true for each value that is part of one longest increasing subsequence.
+     */
+    static boolean[] longestIncreasingRun(int[] sequence) {
+        int n = sequence.length;
+        // tails[k] is the index of the smallest value that ends an increasing run of length k+1.
+        int[] tails = new int[n];
+        int[] previous = new int[n];
+        int length = 0;
+        for (int i = 0; i < n; ++i) {
+            int lo = 0, hi = length;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (sequence[tails[mid]] < sequence[i]) lo = mid + 1;
+                else hi = mid;
+            }
+            previous[i] = lo > 0 ? tails[lo - 1] : -1;
+            tails[lo] = i;
+            if (lo == length) length++;
         }
+        boolean[] result = new boolean[n];
+        for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = previous[i]) {
+            result[sequence[i]] = true;
+        }
+        return result;
+    }
+
+    /**
+     * Move one row inside a batch, keeping the row offsets and the selection in step.
+     */
+    private void relocate(int from, int to) {
+        if (from == to) return;
+        // setComponentZOrder reorders the children without removeNotify()/addNotify().
+        setComponentZOrder(getComponent(from), to);
+        rowOffsets.move(from, to);
+        rowIndex.moved(from, to);
+        selectionModel.move(from, to);
+        pendingChange.moved(from, to);
+    }
+
+    /**
+     * Deliver {@link ListDataEvent}s with the given {@link Executor} instead of on the calling thread, so that slow
+     * listeners do not hold up the Event Dispatch Thread.  Listeners are then called on whatever thread the executor
+     * uses and must not touch Swing components there.  Use an executor that runs tasks one at a time, in order, such
+     * as <code>Executors.newSingleThreadExecutor()</code>, or listeners may see changes out of order.
+     * @param executor the executor, or null to call listeners directly.
+     */
+    public void setEventExecutor(Executor executor) {
+        eventExecutor = executor;
+    }
+
+    public Executor getEventExecutor() {
+        return eventExecutor;
     }
 
     public void addListener(ListDataListener listener) {
@@ -147,59 +1382,187 @@ public class InteractiveComponentList extends JPanel {
     }
 
     /**
-     * Fire a move event to all listeners.
-     * @param draggedIndex the from index
-     * @param dropIndex the to index
+     * Fire a {@link InteractiveComponentListEvent} to all listeners.
+     * @param type one of {@link ListDataEvent#INTERVAL_ADDED}, {@link ListDataEvent#INTERVAL_REMOVED} or
+     *             {@link ListDataEvent#CONTENTS_CHANGED}
+     * @param index0 the first index of the change
+     * @param index1 the last index of the change
+     * @param permutation the old index of each row from index0 to index1, or null if rows were not only reordered.
      */
-    private void fireMoveEvent(int draggedIndex, int dropIndex) {
+    private void fireListDataEvent(int type, int index0, int index1, int[] permutation) {
         ListDataListener[] listeners = listenerList.getListeners(ListDataListener.class);
-        ListDataEvent e = null;
+        // if no listeners we don't waste time allocating ram.
+        if(listeners.length==0) return;
+        ListDataEvent e = new InteractiveComponentListEvent(this, type, index0, index1, permutation);
+        Executor executor = eventExecutor;
+        if(executor==null) {
+            deliver(listeners, e);
+        } else {
+            // the listeners are the ones subscribed now, not when the executor gets around to it.
+            executor.execute(() -> deliver(listeners, e));
+        }
+    }
+
+    private static void deliver(ListDataListener[] listeners, ListDataEvent e) {
         for (ListDataListener listener : listeners) {
-            if(e==null) {
-                // lazy init - if no listeners we don't waste time allocating ram.
-                e = new ListDataEvent(this, ListDataEvent.CONTENTS_CHANGED, draggedIndex, dropIndex);
+            switch (e.getType()) {
+                case ListDataEvent.INTERVAL_ADDED -> listener.intervalAdded(e);
+                case ListDataEvent.INTERVAL_REMOVED -> listener.intervalRemoved(e);
+                default -> listener.contentsChanged(e);
             }
-            listener.contentsChanged(e);
         }
     }
 
     private class PanelDragAndDropHandler extends DropTargetAdapter {
         @Override
         public void dragOver(DropTargetDragEvent dtde) {
-            Point dropPoint = dtde.getLocation();
-            updateLineIndicator(dropPoint.y);
+            dragOverAt(dtde.getLocation());
         }
 
         @Override
         public void drop(DropTargetDropEvent dtde) {
-            moveDroppableHere(lineY);
-            removeLineIndicator();
+            dropOnList(getDroppedRow(dtde));
+            dtde.dropComplete(true);
         }
 
         @Override
         public void dragExit(DropTargetEvent dte) {
-            removeLineIndicator();
+            dragExited();
         }
     }
 
     /**
-     * Get the index of the component that should be dropped at the given point.
+     * A row was dropped on the list itself, not on one of its rows.  It lands on the drop line.
+     * @param row the dropped row, or null if the drop does not say.
+     */
+    void dropOnList(Component row) {
+        int lineY = lineIndicator.getY();
+        dragFinished();
+        dropRow(row, lineY);
+    }
+
+    /**
+     * @return the index of the row being dragged, or after a drop the index it was dropped at.
+     */
+    int getDraggedIndex() {
+        return draggedIndex;
+    }
+
+    /**
+     * Record every drag over this list, for replay with {@link DragReplayer}.
+     * @param trace the trace to add to, or null to stop recording.
+     */
+    public void setDragRecorder(DragTrace trace) {
+        dragRecorder = trace;
+    }
+
+    public DragTrace getDragRecorder() {
+        return dragRecorder;
+    }
+
+    /**
+     * A row is being dragged over this list.  Move the drop line to the nearest row boundary, and scroll while the
+     * pointer is near the top or bottom of the enclosing {@link JViewport}.
+     * @param p the pointer, relative to this list.
+     */
+    void dragOverAt(Point p) {
+        if(dragRecorder!=null) dragRecorder.addOver(p.x, p.y, System.nanoTime());
+        updateLineIndicator(getDropLineY(p.y));
+        autoScroller.update(p);
+    }
+
+    /**
+     * The drag left this list or one of its rows.
+     */
+    void dragExited() {
+        if(dragRecorder!=null) dragRecorder.addExit(System.nanoTime());
+        removeLineIndicator();
+        autoScroller.exited();
+    }
+
+    /**
+     * The drag was dropped or cancelled.
+     */
+    void dragFinished() {
+        autoScroller.stop();
+        removeLineIndicator();
+        snapshots.end();
+    }
+
+    /**
+     * Starts a drag from the painted handle, or changes the selection from the painted checkbox.
+     */
+    private class PaintedChromeMouseHandler extends MouseAdapter {
+        @Override
+        public void mousePressed(MouseEvent e) {
+            int index = getRowIndexAt(e.getY());
+            if(index<0) return;
+            Insets insets = getInsets();
+            if(e.getX() >= insets.left && e.getX() < insets.left + listLayout.getLeftGutter()) {
+                dragStarted(index);
+                getTransferHandler().exportAsDrag(InteractiveComponentList.this, e, TransferHandler.MOVE);
+            } else if(showCheckboxes && e.getX() >= getWidth() - insets.right - listLayout.getRightGutter()) {
+                if(e.isShiftDown()) {
+                    extendSelection(index);
+                } else {
+                    selectionModel.setSelected(index, !selectionModel.isSelected(index));
+                }
+            }
+        }
+    }
+
+    /**
+     * Exports the row under the painted handle.  Drops are handled by {@link PanelDragAndDropHandler}.
+     */
+    private class PaintedRowTransferHandler extends TransferHandler {
+        @Override
+        public int getSourceActions(JComponent c) {
+            return MOVE;
+        }
+
+        @Override
+        protected Transferable createTransferable(JComponent c) {
+            return new InteractiveComponentListMiddle.RowTransferable(getComponent(draggedIndex));
+        }
+
+        @Override
+        protected void exportDone(JComponent source, Transferable data, int action) {
+            dragFinished();
+        }
+    }
+
+    /**
+     * Get the index of the component that should be dropped at the given point.  Rows hidden by the filter take no
+     * space, so a drop lands next to the nearest shown row.
      * @param dropPoint the point where the component should be dropped
      * @return the index of the component that should be dropped at the given point
      */
     public int getDropIndex(Point dropPoint) {
-        for (int i = 0; i < getComponentCount(); i++) {
-            Rectangle bounds = getComponent(i).getBounds();
-            if (dropPoint.y < bounds.y + bounds.height / 2) {
-                return i;
-            }
-        }
-        return getComponentCount();
+        return rowOffsets.getDropIndex(dropPoint.y - getInsets().top);
+    }
+
+    /**
+     * Get the index of the row under the given y coordinate.
+     * @param y the y coordinate, relative to this list.
+     * @return the index of the row, or -1 if there is no row at <code>y</code>.
+     */
+    public int getRowIndexAt(int y) {
+        return rowOffsets.getRowAt(y - getInsets().top);
+    }
+
+    /**
+     * Get the y coordinate of the row boundary closest to the given y coordinate.  This is where the line indicator
+     * is drawn while dragging.
+     * @param y the y coordinate, relative to this list.
+     * @return the top of the row at <code>getDropIndex(y)</code>.
+     */
+    int getDropLineY(int y) {
+        int top = getInsets().top;
+        return top + rowOffsets.getTop(rowOffsets.getDropIndex(y - top));
     }
 
     public void removeLineIndicator() {
-        lineY = -1;
-        repaint();
+        lineIndicator.clear();
     }
 
     /**
@@ -208,24 +1571,30 @@ public class InteractiveComponentList extends JPanel {
      * @return all {@link Component}s in selected rows.
      */
     public List<Component> getSelectedComponents() {
-        List<Component> selectedPanels = new ArrayList<>();
-        for (Component c : getComponents()) {
-            if (c instanceof InteractiveComponentListMiddle panel) {
-                if (panel.getCheck().isSelected()) {
-                    selectedPanels.add(panel.getInnerComponent());
-                }
-            }
-        }
+        List<Component> selectedPanels = new ArrayList<>(selectionModel.getSelectedCount());
+        selectionModel.forEachSelected(i -> selectedPanels.add(getInnerComponent(i)));
         return selectedPanels;
     }
 
     /**
-     * Get the inner component of the {@link InteractiveComponentListMiddle} at the given index.
+     * @return the indexes of all selected rows, in ascending order.
+     */
+    public int[] getSelectedIndices() {
+        return selectionModel.getSelectedIndices();
+    }
+
+    /**
+     * Get the inner component of the {@link InteractiveComponentListMiddle} at the given index.  With
+     * {@link RowStyle#PAINTED} rows are not wrapped and this is the same as <code>getComponent(index)</code>.
      * @param index the index
      * @return the inner component of the {@link InteractiveComponentListMiddle} at the given index.
      */
     public Component getInnerComponent(int index) {
-        return ((InteractiveComponentListMiddle) getComponent(index)).getInnerComponent();
+        return getInnerComponent(getComponent(index));
+    }
+
+    private static Component getInnerComponent(Component row) {
+        return row instanceof InteractiveComponentListMiddle middle ? middle.getInnerComponent() : row;
     }
 
     public static void main(String[] args) {
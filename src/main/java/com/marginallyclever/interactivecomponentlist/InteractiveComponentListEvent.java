@@ -0,0 +1,130 @@
+package com.marginallyclever.interactivecomponentlist;
+
+import javax.swing.event.ListDataEvent;
+
+/**
+ * <p>{@link InteractiveComponentListEvent} is the {@link ListDataEvent} fired by {@link InteractiveComponentList}.</p>
+ * <p>When the rows between <code>index0</code> and <code>index1</code> were only reordered - by dragging, by
+ * <code>moveRow</code> or <code>moveRows</code>, or by any number of those in one batch - the event also carries the
+ * permutation, so listeners can apply the same reorder instead of reading the whole list again.  When exactly one row
+ * moved, <code>getMoveFrom()</code> and <code>getMoveTo()</code> say where.</p>
+ * <p>Events may be delivered off the Event Dispatch Thread (see
+ * <code>InteractiveComponentList.setEventExecutor</code>).  Everything an event carries is fixed when it is made and
+ * is not shared with the list, so listeners may read it on the thread they are called on, but its source is a Swing
+ * component and is not safe to touch there.</p>
+ */
+public class InteractiveComponentListEvent extends ListDataEvent {
+    private final int[] oldIndexOf;
+    private int[] newIndexOf;
+    // -2 until worked out, then the old and new index of the one moved row, or -1.
+    private int moveFrom = -2;
+    private int moveTo = -2;
+
+    /**
+     * @param source the list
+     * @param type one of {@link ListDataEvent#INTERVAL_ADDED}, {@link ListDataEvent#INTERVAL_REMOVED} or
+     *             {@link ListDataEvent#CONTENTS_CHANGED}
+     * @param index0 the first index of the change
+     * @param index1 the last index of the change
+     * @param oldIndexOf for each row from <code>index0</code> to <code>index1</code>, its index before the change, or
+     *                   null if the change was not only a reorder.
+     */
+    public InteractiveComponentListEvent(Object source, int type, int index0, int index1, int[] oldIndexOf) {
+        super(source, type, index0, index1);
+        this.oldIndexOf = oldIndexOf;
+    }
+
+    /**
+     * @return true if the rows between <code>index0</code> and <code>index1</code> were only reordered.
+     */
+    public boolean isPermutation() {
+        return oldIndexOf != null;
+    }
+
+    /**
+     * @return a copy of the permutation: element <code>i</code> is the index before the change of the row now at
+     * <code>getIndex0()+i</code>.
+     * @throws IllegalStateException if this event is not a permutation.
+     */
+    public int[] getPermutation() {
+        checkPermutation();
+        return oldIndexOf.clone();
+    }
+
+    /**
+     * @param newIndex an index after the change
+     * @return the index of the same row before the change.
+     * @throws IllegalStateException if this event is not a permutation.
+     */
+    public int getOldIndex(int newIndex) {
+        checkPermutation();
+        if (newIndex < getIndex0() || newIndex > getIndex1()) return newIndex;
+        return oldIndexOf[newIndex - getIndex0()];
+    }
+
+    /**
+     * @param oldIndex an index before the change
+     * @return the index of the same row after the change.
+     * @throws IllegalStateException if this event is not a permutation.
+     */
+    public int getNewIndex(int oldIndex) {
+        checkPermutation();
+        if (oldIndex < getIndex0() || oldIndex > getIndex1()) return oldIndex;
+        if (newIndexOf == null) {
+            newIndexOf = new int[oldIndexOf.length];
+            for (int i = 0; i < oldIndexOf.length; ++i) newIndexOf[oldIndexOf[i] - getIndex0()] = getIndex0() + i;
+        }
+        return newIndexOf[oldIndex - getIndex0()];
+    }
+
+    /**
+     * @return the index before the change of the one row that moved, or -1 if this is not a permutation in which
+     * exactly one row moved.
+     */
+    public int getMoveFrom() {
+        if (moveFrom == -2) findSingleMove();
+        return moveFrom;
+    }
+
+    /**
+     * @return the index after the change of the one row that moved, or -1 if this is not a permutation in which
+     * exactly one row moved.
+     */
+    public int getMoveTo() {
+        if (moveFrom == -2) findSingleMove();
+        return moveTo;
+    }
+
+    /**
+     * Rows at either end of the range may not have moved at all.  Between them, a single move from one end to the
+     * other shifts every other row by one.
+     */
+    private void findSingleMove() {
+        moveFrom = moveTo = -1;
+        if (oldIndexOf == null) return;
+        int lo = getIndex0();
+        int first = 0;
+        int last = oldIndexOf.length - 1;
+        while (first <= last && oldIndexOf[first] == lo + first) first++;
+        while (last >= first && oldIndexOf[last] == lo + last) last--;
+        if (first >= last) return;
+        if (oldIndexOf[first] == lo + last && isSequence(first + 1, last, lo + first)) {
+            moveFrom = lo + last;
+            moveTo = lo + first;
+        } else if (oldIndexOf[last] == lo + first && isSequence(first, last - 1, lo + first + 1)) {
+            moveFrom = lo + first;
+            moveTo = lo + last;
+        }
+    }
+
+    private boolean isSequence(int first, int last, int start) {
+        for (int i = first; i <= last; ++i) {
+            if (oldIndexOf[i] != start + i - first) return false;
+        }
+        return true;
+    }
+
+    private void checkPermutation() {
+        if (oldIndexOf == null) throw new IllegalStateException("not a permutation");
+    }
+}
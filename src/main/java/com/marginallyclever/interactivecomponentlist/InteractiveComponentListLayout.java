@@ -0,0 +1,289 @@
+package com.marginallyclever.interactivecomponentlist;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.ComponentAdapter;
+import java.awt.event.ComponentEvent;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Set;
+
+/**
+ * <p>{@link InteractiveComponentListLayout} stacks the rows of a {@link InteractiveComponentList} from top to bottom.
+ * Every row is as wide as the list and as tall as its preferred height.  Hidden rows, and rows hidden by the list's
+ * filter, take no space.</p>
+ * <p>Unlike {@link javax.swing.BoxLayout} it does not ask every row for its size on every pass.  The height and
+ * preferred width of each row are cached in the list's {@link RowOffsets}, and a row is only measured again when it
+ * is new or has been invalidated.  Rows are only placed again from the first changed row down, and placement stops
+ * as soon as a row past the last change is found where it already belongs.</p>
+ * <p>The list reports each row that is added, invalidated, shown or hidden with <code>rowChanged</code>, and a pass
+ * only visits those rows, each once.  {@link InteractiveComponentListMiddle} reports itself.  Rows of a
+ * {@link InteractiveComponentList.RowStyle#PAINTED} list are the application's own components and can't, so the layout
+ * listens to each of them instead: a row is measured again when it is shown or hidden, or when one of its own bound
+ * properties changes, such as the text, font or preferred size of a label.  A change deeper inside a painted row that
+ * fires none of these has to be reported with {@link InteractiveComponentList#remeasure(Component)}.</p>
+ * <p>With <code>setFixedRowHeight(int)</code> every row gets the same height and rows are never measured for their
+ * height, only once for their preferred width when they are added.</p>
+ * <p>With <code>setGutters(int,int)</code> the rows are narrowed to leave room on either side, where the list can paint
+ * its own row chrome.</p>
+ */
+class InteractiveComponentListLayout implements LayoutManager2 {
+    private final RowOffsets rows;
+    private int fixedRowHeight = -1;
+    private boolean remeasureAll = false;
+    private int lastWidth = -1;
+    private int leftGutter = 0;
+    private int rightGutter = 0;
+    private int lastPlaced = 0;
+    private int lastMeasured = 0;
+    // rows to measure on the next pass.
+    private final Set<Component> changed = Collections.newSetFromMap(new IdentityHashMap<>());
+    private boolean rowsReportChanges = true;
+    private final RowWatcher watcher = new RowWatcher();
+
+    InteractiveComponentListLayout(RowOffsets rows) {
+        this.rows = rows;
+    }
+
+    /**
+     * @param height the height of every row, or -1 to use the preferred height of each row.
+     */
+    public void setFixedRowHeight(int height) {
+        if (fixedRowHeight == height) return;
+        fixedRowHeight = height;
+        remeasureAll = true;
+    }
+
+    public int getFixedRowHeight() {
+        return fixedRowHeight;
+    }
+
+    /**
+     * Leave empty space to the left and right of every row.
+     * @param left the width of the space left of every row
+     * @param right the width of the space right of every row
+     */
+    public void setGutters(int left, int right) {
+        if (leftGutter == left && rightGutter == right) return;
+        leftGutter = left;
+        rightGutter = right;
+        // every row has to be placed again.
+        lastWidth = -1;
+    }
+
+    public int getLeftGutter() {
+        return leftGutter;
+    }
+
+    public int getRightGutter() {
+        return rightGutter;
+    }
+
+    /**
+     * @param report false if the rows can't report their own changes, and the layout has to listen to each row.  Set
+     *               before the first row is added.
+     */
+    public void setRowsReportChanges(boolean report) {
+        rowsReportChanges = report;
+    }
+
+    /**
+     * Measure a row again on the next pass, because it is new, was invalidated, was shown or hidden, or was hidden or
+     * shown by the filter.
+     * @param row a child of the list
+     */
+    public void rowChanged(Component row) {
+        changed.add(row);
+    }
+
+    /**
+     * The row is a new child of the list.
+     */
+    public void rowAdded(Component row) {
+        changed.add(row);
+        if(rowsReportChanges) return;
+        row.addComponentListener(watcher);
+        if(row instanceof JComponent) row.addPropertyChangeListener(watcher);
+    }
+
+    /**
+     * The row is no longer a child of the list.
+     */
+    public void rowRemoved(Component row) {
+        changed.remove(row);
+        if(rowsReportChanges) return;
+        row.removeComponentListener(watcher);
+        row.removePropertyChangeListener(watcher);
+    }
+
+    /**
+     * Bring the cached size of every row up to date.
+     * @param parent the list
+     */
+    private void measure(Container parent) {
+        int n = parent.getComponentCount();
+        if (rows.size() != n) {
+            // someone changed the children without telling the list.  start over.
+            rows.clear();
+            for (int i = 0; i < n; ++i) rows.insert(i, 0);
+            remeasureAll = true;
+        }
+        int measured = 0;
+        if (remeasureAll) {
+            changed.clear();
+            for (int i = 0; i < n; ++i) measure(parent.getComponent(i), i);
+            measured = n;
+            remeasureAll = false;
+        } else {
+            InteractiveComponentList list = (InteractiveComponentList) parent;
+            // each row is measured once.  it comes back only when it reports a change again.
+            for (Iterator<Component> it = changed.iterator(); it.hasNext(); ) {
+                Component c = it.next();
+                it.remove();
+                int i = list.indexOf(c);
+                if (i < 0 || c.getParent() != parent) continue;
+                measure(c, i);
+                measured++;
+            }
+        }
+        lastMeasured = measured;
+    }
+
+    /**
+     * Bring the cached size of one row up to date.
+     */
+    private void measure(Component c, int i) {
+        boolean fixed = fixedRowHeight >= 0;
+        boolean visible = c.isVisible() && !rows.isFiltered(i);
+        if (!visible) {
+            rows.setSize(i, 0, 0, false);
+        } else {
+            Dimension d = c.getPreferredSize();
+            rows.setSize(i, fixed ? fixedRowHeight : d.height, d.width, true);
+        }
+    }
+
+    @Override
+    public void layoutContainer(Container parent) {
+        synchronized (parent.getTreeLock()) {
+            measure(parent);
+            Insets insets = parent.getInsets();
+            int x = insets.left + leftGutter;
+            int width = Math.max(0, parent.getWidth() - insets.left - insets.right - leftGutter - rightGutter);
+            int n = parent.getComponentCount();
+            int first = rows.getFirstDirty();
+            int last = rows.getLastDirty();
+            if (width != lastWidth) {
+                first = 0;
+                last = n - 1;
+                lastWidth = width;
+            }
+            int placed = 0;
+            for (int i = first; i < n; ++i) {
+                Component c = parent.getComponent(i);
+                int y = insets.top + rows.getTop(i);
+                int h = rows.getHeight(i);
+                if (i > last && c.getX() == x && c.getY() == y && c.getWidth() == width && c.getHeight() == h) {
+                    // nothing below here has changed.
+                    break;
+                }
+                c.setBounds(x, y, width, h);
+                placed++;
+            }
+            lastPlaced = placed;
+            rows.clearDirty();
+        }
+    }
+
+    /**
+     * @return the number of rows measured by the last pass.
+     */
+    int getLastMeasuredCount() {
+        return lastMeasured;
+    }
+
+    /**
+     * @return the number of rows placed by the last layout.
+     */
+    public int getLastPlacedCount() {
+        return lastPlaced;
+    }
+
+    @Override
+    public Dimension preferredLayoutSize(Container parent) {
+        synchronized (parent.getTreeLock()) {
+            measure(parent);
+            Insets insets = parent.getInsets();
+            return new Dimension(
+                    insets.left + insets.right + leftGutter + rightGutter + rows.getMaxWidth(),
+                    insets.top + insets.bottom + rows.getTotalHeight());
+        }
+    }
+
+    @Override
+    public Dimension minimumLayoutSize(Container parent) {
+        return preferredLayoutSize(parent);
+    }
+
+    @Override
+    public Dimension maximumLayoutSize(Container target) {
+        return new Dimension(Integer.MAX_VALUE, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public float getLayoutAlignmentX(Container target) {
+        return 0.5f;
+    }
+
+    @Override
+    public float getLayoutAlignmentY(Container target) {
+        return 0.5f;
+    }
+
+    @Override
+    public void invalidateLayout(Container target) {}
+
+    @Override
+    public void addLayoutComponent(Component comp, Object constraints) {}
+
+    @Override
+    public void addLayoutComponent(String name, Component comp) {}
+
+    @Override
+    public void removeLayoutComponent(Component comp) {}
+
+    /**
+     * Listens to the rows of a list whose rows can't report their own changes.
+     */
+    private class RowWatcher extends ComponentAdapter implements PropertyChangeListener {
+        @Override
+        public void componentShown(ComponentEvent e) {
+            shownOrHidden(e.getComponent());
+        }
+
+        @Override
+        public void componentHidden(ComponentEvent e) {
+            shownOrHidden(e.getComponent());
+        }
+
+        private void shownOrHidden(Component row) {
+            // the event is posted after setVisible() invalidated the list, so it may already have been laid out.
+            changed.add(row);
+            if (row.getParent() instanceof JComponent list) {
+                list.revalidate();
+                list.repaint();
+            }
+        }
+
+        @Override
+        public void propertyChange(PropertyChangeEvent evt) {
+            // a bound property of the row itself changed, which may change its size.  the row revalidates itself.
+            Component row = (Component) evt.getSource();
+            changed.add(row);
+            if (row.getParent() instanceof InteractiveComponentList list) list.rowContentChanged(row);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.marginallyclever.interactivecomponentlist;
+
+/**
+ * <p>{@link InteractiveComponentListMetrics} receives counts and timings from a {@link InteractiveComponentList}.</p>
+ * <p>The list calls it on the Event Dispatch Thread.  Use {@link InteractiveComponentListMetricsRecorder} to keep
+ * counters and latency histograms that can be polled from any thread, or implement this interface to forward the
+ * numbers to another metrics library.  The default, {@link #NONE}, is disabled: the list does not even read the clock
+ * for it.</p>
+ * <p>The same work is also reported as JDK Flight Recorder events in the
+ * <code>InteractiveComponentList</code> category, which cost next to nothing unless a recording is running.</p>
+ */
+public interface InteractiveComponentListMetrics {
+    /**
+     * Things that are counted.
+     */
+    enum Counter {
+        /** A drag started from a row's handle. */
+        DRAGS_STARTED,
+        /** A dragged row was dropped. */
+        DROPS,
+        /** Rows moved by drops.  A drop of a selected block counts every row in it. */
+        ROWS_MOVED,
+        /** A batch of changes ended and was reported to listeners. */
+        COMMITS,
+        /** The list was laid out. */
+        LAYOUTS,
+        /** Rows placed by layouts. */
+        ROWS_PLACED,
+        /** The list was painted. */
+        PAINTS
+    }
+
+    /**
+     * Things that are timed.
+     */
+    enum Latency {
+        /** From pressing a handle to the drop. */
+        DRAG,
+        /** Moving the rows once they are dropped. */
+        DROP,
+        /** Ending a batch: scheduling layout and paint and telling listeners. */
+        COMMIT,
+        /** One layout pass. */
+        LAYOUT,
+        /** One paint of the list and its rows. */
+        PAINT
+    }
+
+    /**
+     * Metrics that are switched off.
+     */
+    InteractiveComponentListMetrics NONE = new InteractiveComponentListMetrics() {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public void count(Counter counter, long amount) {}
+
+        @Override
+        public void record(Latency latency, long nanos) {}
+    };
+
+    /**
+     * @return false to tell the list not to measure anything.
+     */
+    boolean isEnabled();
+
+    /**
+     * @param counter what happened
+     * @param amount how many times
+     */
+    void count(Counter counter, long amount);
+
+    /**
+     * @param latency what was timed
+     * @param nanos how long it took, in nanoseconds
+     */
+    void record(Latency latency, long nanos);
+}
@@ -0,0 +1,150 @@
+package com.marginallyclever.interactivecomponentlist;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * <p>{@link InteractiveComponentListMetricsRecorder} keeps the counts and timings reported by a
+ * {@link InteractiveComponentList} so they can be polled from any thread.</p>
+ * <p>Each {@link InteractiveComponentListMetrics.Latency} has a {@link Histogram} that reports percentiles to within
+ * about 3%.  Recording is a few atomic adds and never allocates.</p>
+ */
+public class InteractiveComponentListMetricsRecorder implements InteractiveComponentListMetrics {
+    private final Map<Counter, LongAdder> counters = new EnumMap<>(Counter.class);
+    private final Map<Latency, Histogram> histograms = new EnumMap<>(Latency.class);
+
+    public InteractiveComponentListMetricsRecorder() {
+        for (Counter c : Counter.values()) counters.put(c, new LongAdder());
+        for (Latency l : Latency.values()) histograms.put(l, new Histogram());
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void count(Counter counter, long amount) {
+        counters.get(counter).add(amount);
+    }
+
+    @Override
+    public void record(Latency latency, long nanos) {
+        histograms.get(latency).record(nanos);
+    }
+
+    public long getCount(Counter counter) {
+        return counters.get(counter).sum();
+    }
+
+    public Histogram getHistogram(Latency latency) {
+        return histograms.get(latency);
+    }
+
+    /**
+     * Set every counter and histogram back to zero.
+     */
+    public void reset() {
+        counters.values().forEach(LongAdder::reset);
+        histograms.values().forEach(Histogram::reset);
+    }
+
+    /**
+     * <p>A latency histogram.  Times under 64 nanoseconds get a bucket each.  Above that each power of two is split
+     * into 32 buckets of equal width, as HdrHistogram does, so a bucket is never wider than 1/32 of the times in it.
+     * Percentiles are reported as the upper bound of the bucket they fall in, so they are at most about 3% above the
+     * real value.</p>
+     * <p>The buckets take about 15 KiB.</p>
+     */
+    public static class Histogram {
+        private static final int SUB_BUCKET_BITS = 5;
+        private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+        // times below this get a bucket each.
+        private static final int EXACT = 2 * SUB_BUCKETS;
+        // the highest power of two a non-negative long can reach is 2^62.
+        private static final int BUCKET_COUNT = EXACT + (62 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+        private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+        private final LongAdder count = new LongAdder();
+        private final LongAdder total = new LongAdder();
+        private final AtomicLong max = new AtomicLong();
+
+        void record(long nanos) {
+            nanos = Math.max(0, nanos);
+            buckets.incrementAndGet(bucketOf(nanos));
+            count.increment();
+            total.add(nanos);
+            max.accumulateAndGet(nanos, Math::max);
+        }
+
+        static int bucketOf(long nanos) {
+            if (nanos < EXACT) return (int) nanos;
+            int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+            int shift = exponent - SUB_BUCKET_BITS;
+            // the top SUB_BUCKET_BITS+1 bits of nanos, without the leading one.
+            int sub = (int) (nanos >>> shift) - SUB_BUCKETS;
+            return EXACT + (shift - 1) * SUB_BUCKETS + sub;
+        }
+
+        /**
+         * @return the longest time that goes in the given bucket.
+         */
+        static long upperBoundOf(int bucket) {
+            if (bucket < EXACT) return bucket;
+            int shift = (bucket - EXACT) / SUB_BUCKETS + 1;
+            int sub = (bucket - EXACT) % SUB_BUCKETS;
+            return ((long) (SUB_BUCKETS + sub + 1) << shift) - 1;
+        }
+
+        void reset() {
+            for (int i = 0; i < buckets.length(); ++i) buckets.set(i, 0);
+            count.reset();
+            total.reset();
+            max.set(0);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        /**
+         * @return the mean in nanoseconds, or 0 if nothing was recorded.
+         */
+        public long getMean() {
+            long n = count.sum();
+            return n == 0 ? 0 : total.sum() / n;
+        }
+
+        /**
+         * @return the longest time recorded, in nanoseconds.
+         */
+        public long getMax() {
+            return max.get();
+        }
+
+        /**
+         * @param percentile from 0 to 100
+         * @return a time in nanoseconds that at least <code>percentile</code> percent of the recorded times are no
+         * longer than, or 0 if nothing was recorded.
+         */
+        public long getPercentile(double percentile) {
+            long n = 0;
+            long[] snapshot = new long[buckets.length()];
+            for (int i = 0; i < snapshot.length; ++i) {
+                snapshot[i] = buckets.get(i);
+                n += snapshot[i];
+            }
+            if (n == 0) return 0;
+            long rank = (long) Math.ceil(n * Math.min(100, Math.max(0, percentile)) / 100.0);
+            long seen = 0;
+            for (int i = 0; i < snapshot.length; ++i) {
+                seen += snapshot[i];
+                if (seen >= Math.max(1, rank)) return Math.min(max.get(), upperBoundOf(i));
+            }
+            return max.get();
+        }
+    }
+}
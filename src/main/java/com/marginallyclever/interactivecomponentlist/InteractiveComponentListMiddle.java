@@ -6,22 +6,38 @@ import java.awt.datatransfer.DataFlavor;
 import java.awt.datatransfer.Transferable;
 import java.awt.datatransfer.UnsupportedFlavorException;
 import java.awt.dnd.*;
+import java.beans.PropertyChangeListener;
+import java.io.IOException;
 
 /**
  * {@link InteractiveComponentListMiddle} is used by a {@link InteractiveComponentList} to wrap a {@link Component} in panel that can be dragged
  * and selected.
  */
 public class InteractiveComponentListMiddle extends JPanel {
-    private static final DataFlavor PANEL_FLAVOR = new DataFlavor(DataFlavor.javaJVMLocalObjectMimeType, "JPanel");
+    static final DataFlavor PANEL_FLAVOR = new DataFlavor(DataFlavor.javaJVMLocalObjectMimeType, "JPanel");
     private final JCheckBox check = new JCheckBox();
     private final JLabel handle = new JLabel("☰");  // U+2630 character
-    private final Component innerComponent;
+    private final JPanel container = new JPanel(new FlowLayout(FlowLayout.LEADING, 0, 0));
+    private Component innerComponent;
+    // a property of the wrapped component changed, so the row may look different.
+    private final PropertyChangeListener innerChanged = e -> {
+        if (getParent() instanceof InteractiveComponentList list) list.rowContentChanged(this);
+    };
 
     /**
      * Creates a new {@link InteractiveComponentListMiddle} to wrap the given {@link Component}.
      * @param comp the component to wrap
      */
     public InteractiveComponentListMiddle(Component comp) {
+        this(comp, true);
+    }
+
+    /**
+     * @param comp the component to wrap
+     * @param droppable false for rows of a list that drags without drag and drop, such as
+     *                  {@link VirtualInteractiveComponentList}.
+     */
+    InteractiveComponentListMiddle(Component comp, boolean droppable) {
         super(new BorderLayout());
         innerComponent = comp;
         setBorder(BorderFactory.createRaisedSoftBevelBorder());
@@ -30,16 +46,35 @@ public class InteractiveComponentListMiddle extends JPanel {
         handle.setBorder(BorderFactory.createEmptyBorder(0,5,0,5));
         add(handle, BorderLayout.WEST);
 
-        JPanel container = new JPanel(new FlowLayout(FlowLayout.LEADING, 0, 0));
         container.setBorder(BorderFactory.createLoweredSoftBevelBorder());
         container.add(comp);
+        comp.addPropertyChangeListener(innerChanged);
         add(container, BorderLayout.CENTER);
 
         check.setName("check");
         add(check, BorderLayout.EAST);
 
+        if(!droppable) return;
         setTransferHandler(new DADInnerPanelTransferHandler());
-        new DropTarget(this, DnDConstants.ACTION_MOVE, new DADInnerPanelDropTargetListener(), true);
+        if(!GraphicsEnvironment.isHeadless()) {
+            new DropTarget(this, DnDConstants.ACTION_MOVE, new DADInnerPanelDropTargetListener(), true);
+        }
+    }
+
+    /**
+     * Tell the list this row is in to measure it again.
+     */
+    @Override
+    public void invalidate() {
+        super.invalidate();
+        if (getParent() instanceof InteractiveComponentList list) list.rowChanged(this);
+    }
+
+    @Override
+    public void setVisible(boolean visible) {
+        boolean changed = visible != isVisible();
+        super.setVisible(visible);
+        if (changed && getParent() instanceof InteractiveComponentList list) list.rowChanged(this);
     }
 
     public Component getHandle() {
@@ -54,33 +89,59 @@ public class InteractiveComponentListMiddle extends JPanel {
         return innerComponent;
     }
 
+    /**
+     * Wrap a different component, keeping the handle, checkbox and drop target.
+     * @param comp the new component to wrap
+     */
+    void setInnerComponent(Component comp) {
+        innerComponent.removePropertyChangeListener(innerChanged);
+        container.remove(innerComponent);
+        container.add(comp);
+        comp.addPropertyChangeListener(innerChanged);
+        innerComponent = comp;
+        revalidate();
+        repaint();
+    }
+
+    /**
+     * Carries a dragged row from its list to the drop target.
+     */
+    static class RowTransferable implements Transferable {
+        private final Component row;
+
+        RowTransferable(Component row) {
+            this.row = row;
+        }
+
+        @Override
+        public DataFlavor[] getTransferDataFlavors() {
+            return new DataFlavor[]{PANEL_FLAVOR};
+        }
+
+        @Override
+        public boolean isDataFlavorSupported(DataFlavor flavor) {
+            return flavor.equals(PANEL_FLAVOR);
+        }
+
+        @Override
+        public Object getTransferData(DataFlavor flavor) throws UnsupportedFlavorException {
+            if (!isDataFlavorSupported(flavor)) {
+                throw new UnsupportedFlavorException(flavor);
+            }
+            return row;
+        }
+    }
+
     private static class DADInnerPanelTransferHandler extends TransferHandler {
         @Override
         protected Transferable createTransferable(JComponent c) {
-            return new Transferable() {
-                @Override
-                public DataFlavor[] getTransferDataFlavors() {
-                    return new DataFlavor[]{PANEL_FLAVOR};
-                }
-
-                @Override
-                public boolean isDataFlavorSupported(DataFlavor flavor) {
-                    return flavor.equals(PANEL_FLAVOR);
-                }
-
-                @Override
-                public Object getTransferData(DataFlavor flavor) throws UnsupportedFlavorException {
-                    if (!isDataFlavorSupported(flavor)) {
-                        throw new UnsupportedFlavorException(flavor);
-                    }
-                    return c;
-                }
-            };
+            return new RowTransferable(c);
         }
 
         @Override
         public boolean canImport(TransferSupport support) {
-            return support.isDrop() && support.isDataFlavorSupported(PANEL_FLAVOR);
+            return support.isDrop() && support.isDataFlavorSupported(PANEL_FLAVOR)
+                    && DADInnerPanelDropTargetListener.getDragParentOf(support.getComponent()) != null;
         }
 
         @Override
@@ -88,83 +149,100 @@ public class InteractiveComponentListMiddle extends JPanel {
             return MOVE;
         }
 
+        @Override
+        protected void exportDone(JComponent source, Transferable data, int action) {
+            Container parent = source.getParent();
+            if (parent instanceof InteractiveComponentList list) list.dragFinished();
+        }
+
         @Override
         public boolean importData(TransferSupport support) {
             if (!canImport(support)) {
                 return false;
             }
 
+            Component droppedPanel;
             try {
-                JPanel droppedPanel = (JPanel) support.getTransferable().getTransferData(PANEL_FLAVOR);
-                Container container = (Container) support.getComponent();
-                while (!(container instanceof InteractiveComponentList parentPanel)) {
-                    container = container.getParent();
-                }
-                Point dropPoint = support.getDropLocation().getDropPoint();
-                int dropIndex = parentPanel.getDropIndex(dropPoint);
-                parentPanel.remove(droppedPanel);
-                parentPanel.add(droppedPanel, dropIndex);
-                parentPanel.revalidate();
-                parentPanel.repaint();
-                return true;
-            } catch (Exception e) {
-                e.printStackTrace();
+                droppedPanel = (Component) support.getTransferable().getTransferData(PANEL_FLAVOR);
+            } catch (UnsupportedFlavorException | IOException e) {
+                return false;
             }
-            return false;
+            InteractiveComponentList parentPanel = DADInnerPanelDropTargetListener.getDragParentOf(support.getComponent());
+            Point dropPoint = SwingUtilities.convertPoint(support.getComponent(), support.getDropLocation().getDropPoint(), parentPanel);
+            // the dragged row moves with the rest of its selection, from this list or another one.
+            parentPanel.dragFinished();
+            return parentPanel.dropRow(droppedPanel, parentPanel.getDropLineY(dropPoint.y));
         }
     }
 
-    private static class DADInnerPanelDropTargetListener extends DropTargetAdapter {
+    static class DADInnerPanelDropTargetListener extends DropTargetAdapter {
         @Override
         public void dragOver(DropTargetDragEvent dtde) {
-            Container first = (Container) dtde.getDropTargetContext().getComponent();
-            Container parent = getDragParentOf(first);
-            InteractiveComponentList parentPanel = (InteractiveComponentList) parent;
-            Point firstLocation = SwingUtilities.convertPoint(first, 0, 0, parent);
-            firstLocation.x += dtde.getLocation().x;
-            firstLocation.y += dtde.getLocation().y;
-            parentPanel.updateLineIndicator(getYRelativeToParent(dtde.getLocation(),first,parent));
-            ((InteractiveComponentList) parent).scrollRectToVisible(new Rectangle(0, firstLocation.y - 10, 1, 20));
+            if (!dragOverRow((Container) dtde.getDropTargetContext().getComponent(), dtde.getLocation())) {
+                dtde.rejectDrag();
+            }
         }
 
-        private Container getDragParentOf(Container first) {
+        /**
+         * A row is being dragged over <code>first</code>.
+         * @param first a row, or something inside a row
+         * @param location the pointer, relative to <code>first</code>
+         * @return false if <code>first</code> is not in a {@link InteractiveComponentList}, and can't take the drop.
+         */
+        static boolean dragOverRow(Container first, Point location) {
+            InteractiveComponentList parentPanel = getDragParentOf(first);
+            if (parentPanel == null) return false;
+            parentPanel.dragOverAt(SwingUtilities.convertPoint(first, location, parentPanel));
+            return true;
+        }
+
+        /**
+         * @return the list <code>first</code> is in, or null if it is not in one.
+         */
+        static InteractiveComponentList getDragParentOf(Component first) {
             Container parent = first.getParent();
-            while (!(parent instanceof InteractiveComponentList)) {
+            while (parent != null && !(parent instanceof InteractiveComponentList)) {
                 parent = parent.getParent();
             }
-            return parent;
-        }
-
-        private int getYRelativeToParent(Point dropPoint,Container first,Container parent) {
-            // first is contained inside parent.  get the relative y offset of first from parent
-            Point firstLocation = SwingUtilities.convertPoint(first, 0, 0, parent);
-            var snapY = dropPoint.y;
-            if (dropPoint.y < first.getHeight() / 2) {
-                // if dropPoint is in the top half of first, snapY is the top of first
-                snapY = 0;
-            } else {
-                // if dropPoint is in the bottom half of first, snapY is the bottom of first
-                snapY = first.getHeight();
-            }
-            return firstLocation.y + snapY;
+            return (InteractiveComponentList) parent;
+        }
+
+        private static int getYRelativeToParent(Point dropPoint,Container first,Container parent) {
+            // first is contained inside parent.  snap to the nearest row boundary using the list's row index.
+            Point p = SwingUtilities.convertPoint(first, dropPoint, parent);
+            return ((InteractiveComponentList) parent).getDropLineY(p.y);
         }
 
         @Override
         public void drop(DropTargetDropEvent dtde) {
-            Container first = (Container) dtde.getDropTargetContext().getComponent();
-            Container parent = getDragParentOf(first);
-            InteractiveComponentList parentPanel = (InteractiveComponentList) parent;
-            parentPanel.removeLineIndicator();
-            parentPanel.moveDroppableHere(getYRelativeToParent(dtde.getLocation(),first,parent));
+            if (getDragParentOf(dtde.getDropTargetContext().getComponent()) == null) {
+                dtde.rejectDrop();
+                return;
+            }
+            Component row = InteractiveComponentList.getDroppedRow(dtde);
+            dropOnRow((Container) dtde.getDropTargetContext().getComponent(), dtde.getLocation(), row);
+            dtde.dropComplete(true);
+        }
+
+        /**
+         * A row was dropped on <code>first</code>.
+         * @param first a row, or something inside a row
+         * @param location the pointer, relative to <code>first</code>
+         * @param row the dropped row, which may come from another list, or null if the drop does not say.
+         * @return false if <code>first</code> is not in a {@link InteractiveComponentList}, and can't take the drop.
+         */
+        static boolean dropOnRow(Container first, Point location, Component row) {
+            InteractiveComponentList parentPanel = getDragParentOf(first);
+            if (parentPanel == null) return false;
+            parentPanel.dragFinished();
+            parentPanel.dropRow(row, getYRelativeToParent(location,first,parentPanel));
+            return true;
         }
 
         @Override
         public void dragExit(DropTargetEvent dte) {
-            Container container = (Container) dte.getDropTargetContext().getComponent();
-            while (!(container instanceof InteractiveComponentList parentPanel)) {
-                container = container.getParent();
-            }
-            parentPanel.removeLineIndicator();
+            InteractiveComponentList parentPanel = getDragParentOf(dte.getDropTargetContext().getComponent());
+            if (parentPanel != null) parentPanel.dragExited();
         }
     }
 }
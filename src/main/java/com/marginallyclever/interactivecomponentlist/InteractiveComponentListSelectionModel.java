@@ -0,0 +1,283 @@
+package com.marginallyclever.interactivecomponentlist;
+
+import javax.swing.event.EventListenerList;
+import javax.swing.event.ListSelectionEvent;
+import javax.swing.event.ListSelectionListener;
+import java.util.BitSet;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+
+/**
+ * <p>{@link InteractiveComponentListSelectionModel} remembers which rows of a list are selected, as one bit per row.</p>
+ * <p>The list keeps it up to date as rows are added, removed and moved, so the selection follows the rows and not
+ * the indexes.  Range selection, select all and clear work a word at a time instead of a row at a time.  It knows how
+ * many rows there are, and an index past the last row is rejected instead of growing the selection.</p>
+ * <p>{@link ListSelectionListener}s are told about every change to which rows are selected.  Rows that keep their
+ * selection but change index because other rows were added, removed or moved do not fire an event; the list's
+ * {@link javax.swing.event.ListDataEvent} describes those.</p>
+ */
+public class InteractiveComponentListSelectionModel {
+    private final EventListenerList listenerList = new EventListenerList();
+    private final BitSet bits = new BitSet();
+    private int anchor = -1;
+    private int size = 0;
+
+    /**
+     * @return the number of rows in the list.
+     */
+    public int getRowCount() {
+        return size;
+    }
+
+    public boolean isSelected(int index) {
+        return index >= 0 && bits.get(index);
+    }
+
+    public boolean isSelectionEmpty() {
+        return bits.isEmpty();
+    }
+
+    /**
+     * @return the number of selected rows.
+     */
+    public int getSelectedCount() {
+        return bits.cardinality();
+    }
+
+    /**
+     * @return the lowest selected index, or -1 if nothing is selected.
+     */
+    public int getMinSelectionIndex() {
+        return bits.nextSetBit(0);
+    }
+
+    /**
+     * @return the highest selected index, or -1 if nothing is selected.
+     */
+    public int getMaxSelectionIndex() {
+        return bits.length() - 1;
+    }
+
+    /**
+     * @param from the index to start looking at
+     * @return the first selected index at or after <code>from</code>, or -1 if there is none.
+     */
+    public int nextSelectedIndex(int from) {
+        return bits.nextSetBit(from);
+    }
+
+    /**
+     * @return the selected indexes in ascending order.
+     */
+    public int[] getSelectedIndices() {
+        return bits.stream().toArray();
+    }
+
+    /**
+     * Visit every selected index in ascending order without allocating.
+     * @param action called once for each selected index
+     */
+    public void forEachSelected(IntConsumer action) {
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            action.accept(i);
+        }
+    }
+
+    /**
+     * @return the index most recently selected or deselected by <code>setSelected</code>, which is where
+     * <code>extendSelection</code> starts from, or -1.
+     */
+    public int getAnchorSelectionIndex() {
+        return anchor;
+    }
+
+    /**
+     * Select or deselect one row and make it the anchor.
+     * @param index the row
+     * @param selected true to select the row
+     * @throws IndexOutOfBoundsException if <code>index</code> is not a row.
+     */
+    public void setSelected(int index, boolean selected) {
+        Objects.checkIndex(index, size);
+        anchor = index;
+        if (bits.get(index) == selected) return;
+        bits.set(index, selected);
+        fireValueChanged(index, index);
+    }
+
+    /**
+     * Select every row from the anchor to the given index, as with a shift-click.  If there is no anchor only
+     * <code>index</code> is selected.
+     * @param index the other end of the range
+     * @throws IndexOutOfBoundsException if <code>index</code> is not a row.
+     */
+    public void extendSelection(int index) {
+        if (anchor < 0) {
+            setSelected(index, true);
+            return;
+        }
+        addSelectionInterval(anchor, index);
+    }
+
+    /**
+     * Select every row between two indexes, inclusive.
+     * @param index0 one end of the range
+     * @param index1 the other end of the range
+     * @throws IndexOutOfBoundsException if either index is not a row.
+     */
+    public void addSelectionInterval(int index0, int index1) {
+        int lo = Math.min(index0, index1);
+        int hi = Math.max(index0, index1);
+        checkRange(lo, hi);
+        bits.set(lo, hi + 1);
+        fireValueChanged(lo, hi);
+    }
+
+    /**
+     * Deselect every row between two indexes, inclusive.  The range is clipped to the rows of the list.
+     * @param index0 one end of the range
+     * @param index1 the other end of the range
+     */
+    public void removeSelectionInterval(int index0, int index1) {
+        int lo = Math.max(0, Math.min(index0, index1));
+        int hi = Math.min(size - 1, Math.max(index0, index1));
+        if (lo > hi) return;
+        bits.clear(lo, hi + 1);
+        fireValueChanged(lo, hi);
+    }
+
+    /**
+     * Select only the rows between two indexes, inclusive.
+     * @param index0 one end of the range
+     * @param index1 the other end of the range
+     * @throws IndexOutOfBoundsException if either index is not a row.
+     */
+    public void setSelectionInterval(int index0, int index1) {
+        int lo = Math.min(index0, index1);
+        int hi = Math.max(index0, index1);
+        checkRange(lo, hi);
+        int changedLo = Math.min(lo, Math.max(0, getMinSelectionIndex()));
+        int changedHi = Math.max(hi, getMaxSelectionIndex());
+        bits.clear();
+        bits.set(lo, hi + 1);
+        fireValueChanged(changedLo, changedHi);
+    }
+
+    /**
+     * @param size the number of rows to select from the top.  It is clipped to the rows of the list.
+     */
+    public void selectAll(int size) {
+        size = Math.min(size, this.size);
+        if (size <= 0) return;
+        addSelectionInterval(0, size - 1);
+    }
+
+    private void checkRange(int lo, int hi) {
+        if (lo < 0 || hi >= size) {
+            throw new IndexOutOfBoundsException("range [" + lo + ", " + hi + "] out of bounds for length " + size);
+        }
+    }
+
+    public void clearSelection() {
+        if (bits.isEmpty()) return;
+        int lo = getMinSelectionIndex();
+        int hi = getMaxSelectionIndex();
+        bits.clear();
+        fireValueChanged(lo, hi);
+    }
+
+    /**
+     * Rows were added to the list.  Selected rows at or after <code>index</code> move down.
+     * @param index the index of the first new row
+     * @param count the number of new rows
+     */
+    void insert(int index, int count) {
+        if (count <= 0) return;
+        size += count;
+        int length = bits.length();
+        if (index < length) {
+            BitSet tail = bits.get(index, length);
+            bits.clear(index, length);
+            bits.or(shiftUp(tail, index + count));
+        }
+        if (anchor >= index) anchor += count;
+    }
+
+    /**
+     * Rows were removed from the list.  Selected rows after them move up.
+     * @param index the index of the first removed row
+     * @param count the number of removed rows
+     */
+    void remove(int index, int count) {
+        if (count <= 0) return;
+        size = Math.max(0, size - count);
+        if (removeBits(index, count)) fireValueChanged(index, index + count - 1);
+    }
+
+    /**
+     * @return true if any of the removed rows were selected.
+     */
+    private boolean removeBits(int index, int count) {
+        if (anchor >= index + count) anchor -= count;
+        else if (anchor >= index) anchor = -1;
+
+        int length = bits.length();
+        if (index >= length) return false;
+        int next = bits.nextSetBit(index);
+        boolean lostSelection = next >= 0 && next < index + count;
+        BitSet tail = bits.get(Math.min(index + count, length), length);
+        bits.clear(index, length);
+        bits.or(shiftUp(tail, index));
+        return lostSelection;
+    }
+
+    /**
+     * A row moved.  Its selection moves with it.
+     * @param from the old index of the row
+     * @param to the new index of the row
+     */
+    void move(int from, int to) {
+        if (from == to) return;
+        boolean selected = bits.get(from);
+        boolean wasAnchor = anchor == from;
+        removeBits(from, 1);
+        insert(to, 1);
+        bits.set(to, selected);
+        if (wasAnchor) anchor = to;
+    }
+
+    /**
+     * @return <code>b</code> with every bit moved up by <code>n</code>.
+     */
+    private static BitSet shiftUp(BitSet b, int n) {
+        long[] words = b.toLongArray();
+        int wordShift = n >>> 6;
+        int bitShift = n & 63;
+        long[] result = new long[words.length + wordShift + 1];
+        for (int i = 0; i < words.length; ++i) {
+            result[i + wordShift] |= words[i] << bitShift;
+            if (bitShift != 0) result[i + wordShift + 1] |= words[i] >>> (64 - bitShift);
+        }
+        return BitSet.valueOf(result);
+    }
+
+    public void addListSelectionListener(ListSelectionListener listener) {
+        listenerList.add(ListSelectionListener.class, listener);
+    }
+
+    public void removeListSelectionListener(ListSelectionListener listener) {
+        listenerList.remove(ListSelectionListener.class, listener);
+    }
+
+    private void fireValueChanged(int first, int last) {
+        ListSelectionListener[] listeners = listenerList.getListeners(ListSelectionListener.class);
+        ListSelectionEvent e = null;
+        for (ListSelectionListener listener : listeners) {
+            if (e == null) {
+                // lazy init - if no listeners we don't waste time allocating ram.
+                e = new ListSelectionEvent(this, first, last, false);
+            }
+            listener.valueChanged(e);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.marginallyclever.interactivecomponentlist;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * <p>{@link LazyRowLoader} builds the components of placeholder rows of a {@link InteractiveComponentList} on
+ * background threads and hands each one to the list on the Event Dispatch Thread.</p>
+ * <p>At most <code>maxInFlight</code> components are built at once.  The next one is only picked when a thread is
+ * free, and it is picked from the rows in and around the visible part of the list first, so the order follows the
+ * user as they scroll.  Rows that are far away are built in the order they were added.</p>
+ * <p>Everything except building the components happens on the EDT, so the pending rows need no locking.</p>
+ * <p>A component that is being built goes to the list that owns its placeholder when it is done.  When the row moves
+ * to another list the build is handed over with <code>handOver</code>, so it is not started a second time.</p>
+ */
+class LazyRowLoader {
+    static final int DEFAULT_MAX_IN_FLIGHT = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    /**
+     * Stands in for a component that has not been built yet.  It paints nothing and is as tall as the estimate.
+     */
+    static class Placeholder extends JComponent {
+        private final Supplier<? extends Component> supplier;
+        private final int estimatedHeight;
+        // the loader that gets the component when it is built, or null if it is not being built or was cancelled.
+        private LazyRowLoader owner;
+
+        Placeholder(Supplier<? extends Component> supplier, int estimatedHeight) {
+            this.supplier = supplier;
+            this.estimatedHeight = estimatedHeight;
+        }
+
+        @Override
+        public Dimension getPreferredSize() {
+            return new Dimension(0, estimatedHeight);
+        }
+    }
+
+    private final InteractiveComponentList list;
+    private final LinkedHashSet<Placeholder> pending = new LinkedHashSet<>();
+    private ThreadPoolExecutor executor;
+    private int maxInFlight = DEFAULT_MAX_IN_FLIGHT;
+    private int inFlight = 0;
+    // placeholders this loader owns that are being built, here or by the loader that handed them over.
+    private int building = 0;
+
+    LazyRowLoader(InteractiveComponentList list) {
+        this.list = list;
+    }
+
+    /**
+     * Build the component of a placeholder row when a thread is free.
+     */
+    public void enqueue(Placeholder placeholder) {
+        pending.add(placeholder);
+        // after the current event, so rows added together are all pending before the first is picked.
+        SwingUtilities.invokeLater(this::schedule);
+    }
+
+    /**
+     * The placeholder row was removed.  Its component is not built, or is thrown away if it is being built now.
+     */
+    public void cancel(Placeholder placeholder) {
+        pending.remove(placeholder);
+        if (placeholder.owner == this) {
+            placeholder.owner = null;
+            building--;
+        }
+    }
+
+    /**
+     * The placeholder row moves to the list of <code>to</code>.  If its component is being built it goes to that list
+     * when it is done.
+     * @return true if the component was being built, or false if <code>to</code> has to build it.
+     */
+    public boolean handOver(Placeholder placeholder, LazyRowLoader to) {
+        if (placeholder.owner != this) return false;
+        placeholder.owner = to;
+        building--;
+        to.building++;
+        return true;
+    }
+
+    public void cancelAll() {
+        pending.clear();
+    }
+
+    /**
+     * @return the number of placeholder rows waiting for a thread or being built.
+     */
+    public int getPendingCount() {
+        return pending.size() + building;
+    }
+
+    void setMaxInFlight(int maxInFlight) {
+        this.maxInFlight = maxInFlight;
+    }
+
+    private void schedule() {
+        while (inFlight < maxInFlight && !pending.isEmpty()) {
+            Placeholder next = pickNext();
+            pending.remove(next);
+            inFlight++;
+            building++;
+            next.owner = this;
+            getExecutor().execute(() -> build(next));
+        }
+    }
+
+    /**
+     * Runs on a background thread.
+     */
+    private void build(Placeholder placeholder) {
+        Component built = null;
+        try {
+            built = placeholder.supplier.get();
+        } finally {
+            // if the supplier failed the placeholder stays, and the exception goes to the thread's handler.
+            Component result = built;
+            SwingUtilities.invokeLater(() -> {
+                inFlight--;
+                LazyRowLoader owner = placeholder.owner;
+                if (owner != null) {
+                    placeholder.owner = null;
+                    owner.building--;
+                    if (result != null) owner.list.realize(placeholder, result);
+                }
+                schedule();
+            });
+        }
+    }
+
+    /**
+     * @return the pending row nearest the visible part of the list, looking no further than one screen above and
+     * below it, or else the pending row added first.
+     */
+    private Placeholder pickNext() {
+        int count = list.getComponentCount();
+        Rectangle visible = list.getVisibleRect();
+        if (count > 0 && !visible.isEmpty()) {
+            int first = list.getRowIndexAt(visible.y);
+            if (first < 0) first = 0;
+            int last = list.getRowIndexAt(visible.y + visible.height - 1);
+            if (last < 0) last = count - 1;
+            for (int i = first; i <= last; ++i) {
+                Placeholder p = pendingAt(i);
+                if (p != null) return p;
+            }
+            int screen = last - first + 1;
+            for (int d = 1; d <= screen; ++d) {
+                Placeholder p = pendingAt(last + d);
+                if (p == null) p = pendingAt(first - d);
+                if (p != null) return p;
+            }
+        }
+        Iterator<Placeholder> i = pending.iterator();
+        return i.next();
+    }
+
+    private Placeholder pendingAt(int index) {
+        if (index < 0 || index >= list.getComponentCount()) return null;
+        return list.getInnerComponent(index) instanceof Placeholder p && pending.contains(p) ? p : null;
+    }
+
+    private ThreadPoolExecutor getExecutor() {
+        if (executor == null) {
+            executor = new ThreadPoolExecutor(maxInFlight, maxInFlight, 1, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(), r -> {
+                        Thread t = new Thread(r, "InteractiveComponentList-loader-" + THREAD_COUNT.incrementAndGet());
+                        t.setDaemon(true);
+                        return t;
+                    });
+            // no threads linger once everything is built.
+            executor.allowCoreThreadTimeOut(true);
+        }
+        return executor;
+    }
+}
@@ -0,0 +1,97 @@
+package com.marginallyclever.interactivecomponentlist;
+
+import javax.swing.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>{@link MutationQueue} lets any thread queue changes to a {@link InteractiveComponentList} and applies them on the
+ * Event Dispatch Thread in batches.</p>
+ * <p>Submitting never takes a lock.  The first change after a quiet spell starts a one-shot {@link Timer}, so
+ * everything submitted within one frame is applied together inside one <code>beginUpdate()</code> /
+ * <code>endUpdate()</code>: one layout and one event.  If {@link #FLUSH_THRESHOLD} changes pile up before the frame is
+ * due they are applied straight away.</p>
+ * <p>The queue holds at most <code>capacity</code> changes.  When it is full <code>submit</code> returns false, which
+ * tells producers they are running ahead of the EDT.</p>
+ */
+class MutationQueue {
+    static final int FRAME_MS = 16;
+    static final int FLUSH_THRESHOLD = 1024;
+    static final int DEFAULT_CAPACITY = 65536;
+
+    private final InteractiveComponentList list;
+    private final ConcurrentLinkedQueue<Runnable> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicBoolean frameScheduled = new AtomicBoolean();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final Timer frameTimer = new Timer(FRAME_MS, e -> drain());
+    private volatile int capacity = DEFAULT_CAPACITY;
+
+    MutationQueue(InteractiveComponentList list) {
+        this.list = list;
+        frameTimer.setRepeats(false);
+    }
+
+    /**
+     * Queue a change.  Safe to call from any thread.
+     * @param mutation the change, which will be run on the EDT.
+     * @return false if the queue is full and the change was not queued.
+     */
+    public boolean submit(Runnable mutation) {
+        int size = pending.incrementAndGet();
+        if (size > capacity) {
+            pending.decrementAndGet();
+            return false;
+        }
+        queue.add(mutation);
+        if (frameScheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(frameTimer::restart);
+        }
+        if (size >= FLUSH_THRESHOLD && flushScheduled.compareAndSet(false, true)) {
+            SwingUtilities.invokeLater(this::drain);
+        }
+        return true;
+    }
+
+    /**
+     * @return the number of changes queued and not yet applied.
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public void setCapacity(int capacity) {
+        if (capacity <= 0) throw new IllegalArgumentException("capacity must be positive");
+        this.capacity = capacity;
+    }
+
+    /**
+     * Apply every queued change as one batch.  Must be called on the EDT.
+     */
+    public void drain() {
+        // clear the flags first, so anything submitted while draining schedules another frame.
+        frameScheduled.set(false);
+        flushScheduled.set(false);
+        frameTimer.stop();
+        if (queue.isEmpty()) return;
+
+        list.beginUpdate();
+        try {
+            // only what is queued now.  producers that keep up can not hold the EDT here forever.
+            for (int n = pending.get(); n > 0; --n) {
+                Runnable mutation = queue.poll();
+                if (mutation == null) break;
+                pending.decrementAndGet();
+                mutation.run();
+            }
+        } finally {
+            list.endUpdate();
+            if (!queue.isEmpty() && frameScheduled.compareAndSet(false, true)) frameTimer.restart();
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.marginallyclever.interactivecomponentlist;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * <p>{@link PaintedRowChrome} draws the drag handle and selection checkbox of every row in a
+ * {@link InteractiveComponentList} that uses {@link InteractiveComponentList.RowStyle#PAINTED}.</p>
+ * <p>One instance serves every row.  Nothing is allocated per row: the handle is a string and the checkbox is the
+ * look and feel's checkbox icon, painted with a single shared {@link JCheckBox} standing in for each row.</p>
+ */
+class PaintedRowChrome {
+    static final String HANDLE = "☰";  // U+2630 character
+    private static final int HANDLE_PADDING = 5;
+    private static final int CHECK_PADDING = 4;
+    private static final Icon EMPTY_CHECK_ICON = new EmptyCheckIcon();
+    private final JCheckBox checkRenderer = new JCheckBox();
+
+    /**
+     * @param list the list, for its font
+     * @return the width of the handle gutter
+     */
+    int getHandleWidth(JComponent list) {
+        return list.getFontMetrics(list.getFont()).stringWidth(HANDLE) + HANDLE_PADDING * 2;
+    }
+
+    /**
+     * @return the width of the checkbox gutter
+     */
+    int getCheckWidth() {
+        return getCheckIcon().getIconWidth() + CHECK_PADDING * 2;
+    }
+
+    private Icon getCheckIcon() {
+        Icon icon = UIManager.getIcon("CheckBox.icon");
+        return icon != null ? icon : EMPTY_CHECK_ICON;
+    }
+
+    /**
+     * Paint the handle of one row, centered in the given area.
+     */
+    void paintHandle(Graphics g, JComponent list, int x, int y, int width, int height) {
+        FontMetrics fm = list.getFontMetrics(list.getFont());
+        g.setFont(list.getFont());
+        g.setColor(list.getForeground());
+        int textY = y + (height - fm.getHeight()) / 2 + fm.getAscent();
+        g.drawString(HANDLE, x + (width - fm.stringWidth(HANDLE)) / 2, textY);
+    }
+
+    /**
+     * Paint the checkbox of one row, centered in the given area.
+     */
+    void paintCheck(Graphics g, int x, int y, int width, int height, boolean selected) {
+        Icon icon = getCheckIcon();
+        checkRenderer.setSelected(selected);
+        icon.paintIcon(checkRenderer, g, x + (width - icon.getIconWidth()) / 2, y + (height - icon.getIconHeight()) / 2);
+    }
+
+    /**
+     * Used when the look and feel has no checkbox icon.
+     */
+    private static class EmptyCheckIcon implements Icon {
+        private static final int SIZE = 13;
+
+        @Override
+        public void paintIcon(Component c, Graphics g, int x, int y) {
+            g.setColor(c.getForeground());
+            g.drawRect(x, y, SIZE - 1, SIZE - 1);
+            if (((AbstractButton) c).isSelected()) {
+                g.fillRect(x + 3, y + 3, SIZE - 6, SIZE - 6);
+            }
+        }
+
+        @Override
+        public int getIconWidth() {
+            return SIZE;
+        }
+
+        @Override
+        public int getIconHeight() {
+            return SIZE;
+        }
+    }
+}
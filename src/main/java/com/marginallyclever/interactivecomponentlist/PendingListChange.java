@@ -0,0 +1,174 @@
+package com.marginallyclever.interactivecomponentlist;
+
+import javax.swing.event.ListDataEvent;
+
+/**
+ * <p>{@link PendingListChange} collects the rows added to, removed from, or moved within a
+ * {@link InteractiveComponentList} during one update so that a single {@link ListDataEvent} can describe all of them.</p>
+ * <p>Rows added next to each other become one {@link ListDataEvent#INTERVAL_ADDED}.  Rows removed next to each other
+ * become one {@link ListDataEvent#INTERVAL_REMOVED}.  Anything else becomes one {@link ListDataEvent#CONTENTS_CHANGED}
+ * that covers every row that may have changed.</p>
+ * <p>While every change in the update is a move, it also remembers where each row in the changed range came from, so
+ * that the event can describe the exact permutation.  Moves that put every row back where it was are no change at
+ * all.</p>
+ */
+class PendingListChange {
+    private static final int NONE = -1;
+    private int type = NONE;
+    private int index0;
+    private int index1;
+    private int sizeBefore;
+    // oldIndexOf[i] is the index before the update of the row now at index0+i, or null if not every change was a move.
+    private int[] oldIndexOf;
+
+    /**
+     * Start collecting a new change.
+     * @param size the number of rows before the change.
+     */
+    public void begin(int size) {
+        type = NONE;
+        sizeBefore = size;
+        oldIndexOf = null;
+    }
+
+    /**
+     * @return true if nothing changed, or if every change was a move and every row is back where it started.
+     */
+    public boolean isEmpty() {
+        if (type == NONE) return true;
+        if (oldIndexOf == null) return false;
+        for (int i = 0; i < oldIndexOf.length; ++i) {
+            if (oldIndexOf[i] != index0 + i) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param index the index of the first new row, after it was added.
+     * @param count the number of rows added.
+     */
+    public void added(int index, int count) {
+        if (count <= 0) return;
+        if (type == NONE) {
+            set(ListDataEvent.INTERVAL_ADDED, index, index + count - 1);
+        } else if (type == ListDataEvent.INTERVAL_ADDED && index >= index0 && index <= index1 + 1) {
+            index1 += count;
+        } else {
+            mixed(index, index + count - 1);
+        }
+    }
+
+    /**
+     * @param index the index of the first removed row, before it was removed.
+     * @param count the number of rows removed.
+     */
+    public void removed(int index, int count) {
+        if (count <= 0) return;
+        if (type == NONE) {
+            set(ListDataEvent.INTERVAL_REMOVED, index, index + count - 1);
+        } else if (type == ListDataEvent.INTERVAL_REMOVED && index == index0) {
+            index1 += count;
+        } else if (type == ListDataEvent.INTERVAL_REMOVED && index + count == index0) {
+            index0 = index;
+        } else {
+            mixed(index, index + count - 1);
+        }
+    }
+
+    /**
+     * Rows in the given range changed without changing the size of the list, as happens when a row is moved.
+     * @param index0 one end of the range
+     * @param index1 the other end of the range
+     */
+    public void changed(int index0, int index1) {
+        if (type == NONE) {
+            set(ListDataEvent.CONTENTS_CHANGED, Math.min(index0, index1), Math.max(index0, index1));
+        } else {
+            mixed(Math.min(index0, index1), Math.max(index0, index1));
+        }
+    }
+
+    /**
+     * One row moved.  Every other row keeps its order.
+     * @param from the index of the row before it moved
+     * @param to the index of the row after it moved
+     */
+    public void moved(int from, int to) {
+        if (from == to) return;
+        int lo = Math.min(from, to);
+        int hi = Math.max(from, to);
+        if (type == NONE) {
+            set(ListDataEvent.CONTENTS_CHANGED, lo, hi);
+            oldIndexOf = new int[hi - lo + 1];
+            for (int i = 0; i < oldIndexOf.length; ++i) oldIndexOf[i] = lo + i;
+        } else if (oldIndexOf != null) {
+            growPermutation(lo, hi);
+        } else {
+            mixed(lo, hi);
+            return;
+        }
+        int f = from - index0;
+        int t = to - index0;
+        int v = oldIndexOf[f];
+        if (f < t) System.arraycopy(oldIndexOf, f + 1, oldIndexOf, f, t - f);
+        else System.arraycopy(oldIndexOf, t, oldIndexOf, t + 1, f - t);
+        oldIndexOf[t] = v;
+    }
+
+    /**
+     * Widen the permutation to cover <code>lo</code>...<code>hi</code>.  Rows outside the old range have not moved.
+     */
+    private void growPermutation(int lo, int hi) {
+        if (lo >= index0 && hi <= index1) return;
+        int newLo = Math.min(lo, index0);
+        int newHi = Math.max(hi, index1);
+        int[] grown = new int[newHi - newLo + 1];
+        for (int i = 0; i < grown.length; ++i) grown[i] = newLo + i;
+        System.arraycopy(oldIndexOf, 0, grown, index0 - newLo, oldIndexOf.length);
+        oldIndexOf = grown;
+        index0 = newLo;
+        index1 = newHi;
+    }
+
+    /**
+     * @return for each row from <code>getIndex0()</code> to <code>getIndex1()</code>, its index before the update, or
+     * null if the update did more than move rows.
+     */
+    public int[] getPermutation() {
+        return oldIndexOf;
+    }
+
+    private void set(int type, int index0, int index1) {
+        oldIndexOf = null;
+        this.type = type;
+        this.index0 = index0;
+        this.index1 = index1;
+    }
+
+    private void mixed(int lo, int hi) {
+        set(ListDataEvent.CONTENTS_CHANGED, Math.min(index0, lo), Math.max(index1, hi));
+    }
+
+    /**
+     * @return the {@link ListDataEvent} type of the change, or -1 if nothing changed.
+     */
+    public int getType() {
+        return type;
+    }
+
+    public int getIndex0() {
+        return index0;
+    }
+
+    /**
+     * @param sizeAfter the number of rows after the change.
+     * @return the last index covered by the change.  When rows were both added and removed and the size of the list
+     * changed, every row to the end of the list may have moved.
+     */
+    public int getIndex1(int sizeAfter) {
+        if (type == ListDataEvent.CONTENTS_CHANGED && sizeAfter != sizeBefore) {
+            return Math.max(index1, Math.max(sizeAfter, sizeBefore) - 1);
+        }
+        return index1;
+    }
+}
@@ -0,0 +1,173 @@
+package com.marginallyclever.interactivecomponentlist;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * <p>{@link ReorderHistory} remembers the reorders made to a {@link InteractiveComponentList} so they can be undone
+ * and redone.</p>
+ * <p>Each entry is the permutation of one batch or one drag, without the rows at either end that did not move, stored
+ * as runs of rows that kept their order.  Each run is two ints, so a single move is three runs, a block of
+ * <code>k</code> rows is at most <code>2k+1</code> runs, and only a sort that really shuffles the list costs as much
+ * as the list.  The history never holds a reference to a row.</p>
+ * <p>Entries are dropped, oldest first, once the undo and redo entries together need more than the memory limit.</p>
+ */
+class ReorderHistory {
+    static final int DEFAULT_MEMORY_LIMIT = 1 << 20;
+    // object headers, the array header and the fields of an Entry, roughly.
+    private static final int ENTRY_OVERHEAD = 48;
+
+    private final ArrayDeque<Entry> undo = new ArrayDeque<>();
+    private final ArrayDeque<Entry> redo = new ArrayDeque<>();
+    private long memoryLimit = DEFAULT_MEMORY_LIMIT;
+    private long memoryUsed = 0;
+
+    /**
+     * One reorder of the rows from <code>index0</code> to <code>index0+length-1</code>.
+     */
+    static final class Entry {
+        final int index0;
+        final int length;
+        // pairs of (index before the reorder of the first row of the run, number of rows in the run).
+        private final int[] runs;
+
+        private Entry(int index0, int length, int[] runs) {
+            this.index0 = index0;
+            this.length = length;
+            this.runs = runs;
+        }
+
+        /**
+         * @return for each row from <code>index0</code>, its index before the reorder.
+         */
+        int[] getOldIndexOf() {
+            int[] oldIndexOf = new int[length];
+            int i = 0;
+            for (int r = 0; r < runs.length; r += 2) {
+                for (int j = 0; j < runs[r + 1]; ++j) oldIndexOf[i++] = runs[r] + j;
+            }
+            return oldIndexOf;
+        }
+
+        /**
+         * @return for each row from <code>index0</code> before the reorder, its index after the reorder.
+         */
+        int[] getNewIndexOf() {
+            int[] newIndexOf = new int[length];
+            int i = index0;
+            for (int r = 0; r < runs.length; r += 2) {
+                for (int j = 0; j < runs[r + 1]; ++j) newIndexOf[runs[r] + j - index0] = i++;
+            }
+            return newIndexOf;
+        }
+
+        int getRunCount() {
+            return runs.length / 2;
+        }
+
+        long getMemory() {
+            return ENTRY_OVERHEAD + 4L * runs.length;
+        }
+    }
+
+    /**
+     * Remember a reorder.  Anything that could be redone is forgotten.
+     * @param index0 the first row of the permutation
+     * @param oldIndexOf for each row from <code>index0</code>, its index before the reorder.
+     */
+    public void record(int index0, int[] oldIndexOf) {
+        int first = 0;
+        int last = oldIndexOf.length - 1;
+        while (first <= last && oldIndexOf[first] == index0 + first) first++;
+        while (last >= first && oldIndexOf[last] == index0 + last) last--;
+        if (first > last) return;
+
+        int[] runs = new int[8];
+        int count = 0;
+        for (int i = first; i <= last; ++i) {
+            if (count > 0 && oldIndexOf[i] == runs[count - 2] + runs[count - 1]) {
+                runs[count - 1]++;
+                continue;
+            }
+            if (count == runs.length) runs = Arrays.copyOf(runs, count * 2);
+            runs[count++] = oldIndexOf[i];
+            runs[count++] = 1;
+        }
+        Entry entry = new Entry(index0 + first, last - first + 1, Arrays.copyOf(runs, count));
+
+        clearRedo();
+        if (entry.getMemory() > memoryLimit) {
+            // older entries can't be undone without undoing this one first.
+            clear();
+            return;
+        }
+        undo.addLast(entry);
+        memoryUsed += entry.getMemory();
+        trim();
+    }
+
+    /**
+     * @return the most recent reorder, now moved to the redo list, or null if there is nothing to undo.
+     */
+    public Entry undo() {
+        Entry entry = undo.pollLast();
+        if (entry != null) redo.addLast(entry);
+        return entry;
+    }
+
+    /**
+     * @return the most recently undone reorder, now moved back to the undo list, or null if there is nothing to redo.
+     */
+    public Entry redo() {
+        Entry entry = redo.pollLast();
+        if (entry != null) undo.addLast(entry);
+        return entry;
+    }
+
+    public boolean canUndo() {
+        return !undo.isEmpty();
+    }
+
+    public boolean canRedo() {
+        return !redo.isEmpty();
+    }
+
+    public void clear() {
+        undo.clear();
+        redo.clear();
+        memoryUsed = 0;
+    }
+
+    private void clearRedo() {
+        for (Entry e : redo) memoryUsed -= e.getMemory();
+        redo.clear();
+    }
+
+    /**
+     * @param bytes roughly how much memory the undo and redo entries may use together.  0 turns the history off.
+     */
+    public void setMemoryLimit(long bytes) {
+        if (bytes < 0) throw new IllegalArgumentException("bytes " + bytes);
+        memoryLimit = bytes;
+        trim();
+    }
+
+    public long getMemoryLimit() {
+        return memoryLimit;
+    }
+
+    /**
+     * @return roughly how much memory the undo and redo entries use.
+     */
+    public long getMemoryUsed() {
+        return memoryUsed;
+    }
+
+    /**
+     * Drop the oldest undo entries, then the redo entries furthest from now, until the rest fit.
+     */
+    private void trim() {
+        while (memoryUsed > memoryLimit && !undo.isEmpty()) memoryUsed -= undo.pollFirst().getMemory();
+        while (memoryUsed > memoryLimit && !redo.isEmpty()) memoryUsed -= redo.pollFirst().getMemory();
+    }
+}
@@ -0,0 +1,180 @@
+package com.marginallyclever.interactivecomponentlist;
+
+import java.awt.*;
+import java.util.IdentityHashMap;
+
+/**
+ * <p>{@link RowIndex} finds the row of a {@link InteractiveComponentList} that holds a component, without scanning the
+ * list.  Both the row and the component it wraps map to the same node.</p>
+ * <p>The nodes are kept in list order in a treap ordered by position, where every node knows its parent and the size
+ * of its subtree.  The index of a row is worked out by climbing from its node to the root, and adding, removing or
+ * moving a row only touches the nodes on one path, so every operation is O(log n) no matter where in the list it
+ * happens.  A plain map from component to index would have to renumber every row after each change.</p>
+ * <p>Every answer is checked against the container's own child array.  If the children were reordered without the
+ * list knowing, the index is rebuilt from them.</p>
+ */
+class RowIndex {
+    private static class Node {
+        final Component row;
+        final int priority;
+        Node left, right, parent;
+        int size = 1;
+
+        Node(Component row, int priority) {
+            this.row = row;
+            this.priority = priority;
+        }
+    }
+
+    private final IdentityHashMap<Component, Node> nodes = new IdentityHashMap<>();
+    private Node root;
+    private int seed = 0x2545F491;
+
+    /**
+     * @param row the row that was added
+     * @param inner the component wrapped by the row, or the row itself
+     * @param index the index of the new row
+     */
+    public void added(Component row, Component inner, int index) {
+        Node n = new Node(row, nextPriority());
+        nodes.put(row, n);
+        if (inner != row) nodes.put(inner, n);
+        insert(n, index);
+    }
+
+    /**
+     * @param row the row that was removed
+     * @param inner the component wrapped by the row, or the row itself
+     * @param index the index of the row before it was removed
+     */
+    public void removed(Component row, Component inner, int index) {
+        nodes.remove(row);
+        if (inner != row) nodes.remove(inner);
+        removeAt(index);
+    }
+
+    public void moved(int from, int to) {
+        insert(removeAt(from), to);
+    }
+
+    public void clear() {
+        nodes.clear();
+        root = null;
+    }
+
+    public boolean contains(Component c) {
+        return nodes.containsKey(c);
+    }
+
+    /**
+     * @param parent the list
+     * @param c a row, or the component wrapped by a row
+     * @return the index of the row, or -1 if <code>c</code> is not in the list.
+     */
+    public int indexOf(Container parent, Component c) {
+        Node n = nodes.get(c);
+        if (n == null) return -1;
+        int index = rank(n);
+        if (index < parent.getComponentCount() && parent.getComponent(index) == n.row) return index;
+        // the children were changed behind the list's back.
+        rebuild(parent);
+        n = nodes.get(c);
+        return n == null ? -1 : rank(n);
+    }
+
+    /**
+     * Start over from the children of <code>parent</code>, keeping the mapping of wrapped components.
+     */
+    private void rebuild(Container parent) {
+        IdentityHashMap<Component, Component> rowOf = new IdentityHashMap<>();
+        nodes.forEach((key, node) -> rowOf.put(key, node.row));
+        clear();
+        int n = parent.getComponentCount();
+        for (int i = 0; i < n; ++i) {
+            Component row = parent.getComponent(i);
+            Node node = new Node(row, nextPriority());
+            nodes.put(row, node);
+            insert(node, i);
+        }
+        rowOf.forEach((key, row) -> {
+            Node node = nodes.get(row);
+            if (node != null) nodes.put(key, node);
+        });
+    }
+
+    private int nextPriority() {
+        // xorshift.  treap priorities only need to look random.
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        return seed;
+    }
+
+    private static int size(Node n) {
+        return n == null ? 0 : n.size;
+    }
+
+    private static Node update(Node n) {
+        n.size = 1 + size(n.left) + size(n.right);
+        if (n.left != null) n.left.parent = n;
+        if (n.right != null) n.right.parent = n;
+        return n;
+    }
+
+    private static int rank(Node n) {
+        int index = size(n.left);
+        while (n.parent != null) {
+            if (n == n.parent.right) index += size(n.parent.left) + 1;
+            n = n.parent;
+        }
+        return index;
+    }
+
+    private void insert(Node n, int index) {
+        n.left = n.right = n.parent = null;
+        n.size = 1;
+        Node[] parts = split(root, index);
+        root = merge(merge(parts[0], n), parts[1]);
+        root.parent = null;
+    }
+
+    private Node removeAt(int index) {
+        Node[] parts = split(root, index);
+        Node[] rest = split(parts[1], 1);
+        root = merge(parts[0], rest[1]);
+        if (root != null) root.parent = null;
+        return rest[0];
+    }
+
+    /**
+     * @return the first <code>count</code> nodes of <code>n</code> and the rest.
+     */
+    private static Node[] split(Node n, int count) {
+        if (n == null) return new Node[2];
+        if (size(n.left) >= count) {
+            Node[] parts = split(n.left, count);
+            n.left = parts[1];
+            if (parts[0] != null) parts[0].parent = null;
+            parts[1] = update(n);
+            return parts;
+        } else {
+            Node[] parts = split(n.right, count - size(n.left) - 1);
+            n.right = parts[0];
+            if (parts[1] != null) parts[1].parent = null;
+            parts[0] = update(n);
+            return parts;
+        }
+    }
+
+    private static Node merge(Node a, Node b) {
+        if (a == null) return b;
+        if (b == null) return a;
+        if (a.priority > b.priority) {
+            a.right = merge(a.right, b);
+            return update(a);
+        } else {
+            b.left = merge(a, b.left);
+            return update(b);
+        }
+    }
+}
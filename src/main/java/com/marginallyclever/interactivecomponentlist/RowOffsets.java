@@ -0,0 +1,400 @@
+package com.marginallyclever.interactivecomponentlist;
+
+import java.util.Arrays;
+
+/**
+ * <p>{@link RowOffsets} keeps the height of every row in a {@link InteractiveComponentList} in a Fenwick tree, so that
+ * the top of a row and the row under a y coordinate are found in O(log n) instead of asking every child for its
+ * bounds.</p>
+ * <p>Rows can be inserted, removed, moved and resized one at a time.  Resizing a row updates the tree in O(log n), as
+ * does adding or removing the last row.  Inserting, removing or moving any other row shifts the rows below it, so the
+ * tree is built again, in O(n), the next time it is needed.</p>
+ * <p>{@link InteractiveComponentListLayout} also keeps the preferred width and visibility of each row here, and uses
+ * the range of rows changed since the last layout to place only the rows that moved.</p>
+ * <p>Rows hidden by the list's filter are flagged here.  The layout gives them no height, and the flags move with the
+ * rows so that visible indexes can be converted to row indexes and back.  A Fenwick tree of the flags makes each
+ * conversion O(log n).  Hiding or showing a row updates the tree in O(log n); inserting, removing or moving a row
+ * shifts the flags, so the tree is built again, in O(n), the next time it is needed.</p>
+ * <p>All coordinates are relative to the top of the first row.</p>
+ */
+class RowOffsets {
+    private int[] heights = new int[16];
+    // preferred width of each row, or -1 if the row has not been measured.
+    private int[] widths = new int[16];
+    private boolean[] visible = new boolean[16];
+    private boolean[] filtered = new boolean[16];
+    private int filteredCount = 0;
+    // Fenwick tree of filtered[], 1-based.  only up to date if filteredTreeValid.
+    private int[] filteredTree = new int[17];
+    private boolean filteredTreeValid = true;
+    // Fenwick tree of heights[], 1-based.  only up to date if heightTreeValid.
+    private int[] heightTree = new int[17];
+    private boolean heightTreeValid = true;
+    private int size = 0;
+    private int maxWidth = 0;
+    private boolean maxWidthValid = true;
+    // rows changed since clearDirty().  rows after dirtyHi have not changed size or order.
+    private int dirtyLo = Integer.MAX_VALUE;
+    private int dirtyHi = -1;
+
+    public int size() {
+        return size;
+    }
+
+    public void clear() {
+        size = 0;
+        filteredCount = 0;
+        filteredTreeValid = false;
+        heightTreeValid = true;
+        maxWidth = 0;
+        maxWidthValid = true;
+        dirtyLo = 0;
+        dirtyHi = -1;
+    }
+
+    /**
+     * Insert a new row.
+     * @param index the index of the new row
+     * @param height the height of the new row
+     */
+    public void insert(int index, int height) {
+        checkIndex(index, size);
+        ensureCapacity(size + 1);
+        System.arraycopy(heights, index, heights, index + 1, size - index);
+        System.arraycopy(widths, index, widths, index + 1, size - index);
+        System.arraycopy(visible, index, visible, index + 1, size - index);
+        System.arraycopy(filtered, index, filtered, index + 1, size - index);
+        heights[index] = height;
+        widths[index] = -1;
+        visible[index] = true;
+        filtered[index] = false;
+        size++;
+        filteredTreeValid = false;
+        if (index == size - 1 && heightTreeValid) {
+            // a new last row only adds one node to the tree.  it covers itself and the rows below its lowest bit.
+            heightTree[size] = height + prefixHeight(size - 1) - prefixHeight(size - (size & -size));
+        } else {
+            heightTreeValid = false;
+        }
+        dirtyLo = Math.min(dirtyLo, index);
+        dirtyHi = index <= dirtyHi ? dirtyHi + 1 : index;
+    }
+
+    /**
+     * Remove one row.
+     * @param index the index of the row to remove
+     */
+    public void remove(int index) {
+        checkIndex(index, size - 1);
+        if (widths[index] >= maxWidth) maxWidthValid = false;
+        if (filtered[index]) filteredCount--;
+        System.arraycopy(heights, index + 1, heights, index, size - index - 1);
+        System.arraycopy(widths, index + 1, widths, index, size - index - 1);
+        System.arraycopy(visible, index + 1, visible, index, size - index - 1);
+        System.arraycopy(filtered, index + 1, filtered, index, size - index - 1);
+        size--;
+        filteredTreeValid = false;
+        // removing the last row leaves the nodes of the other rows as they were.
+        if (index != size) heightTreeValid = false;
+        dirtyLo = Math.min(dirtyLo, index);
+        // every row below a removed row moves up, so the layout must not stop above it.
+        dirtyHi = index <= dirtyHi ? dirtyHi - 1 : Math.max(dirtyHi, index - 1);
+    }
+
+    /**
+     * Move one row, keeping its height.
+     * @param from the current index of the row
+     * @param to the index of the row after the move
+     */
+    public void move(int from, int to) {
+        checkIndex(from, size - 1);
+        checkIndex(to, size - 1);
+        if (from == to) return;
+        int h = heights[from];
+        int w = widths[from];
+        boolean v = visible[from];
+        boolean f = filtered[from];
+        if (from < to) {
+            System.arraycopy(heights, from + 1, heights, from, to - from);
+            System.arraycopy(widths, from + 1, widths, from, to - from);
+            System.arraycopy(visible, from + 1, visible, from, to - from);
+            System.arraycopy(filtered, from + 1, filtered, from, to - from);
+        } else {
+            System.arraycopy(heights, to, heights, to + 1, from - to);
+            System.arraycopy(widths, to, widths, to + 1, from - to);
+            System.arraycopy(visible, to, visible, to + 1, from - to);
+            System.arraycopy(filtered, to, filtered, to + 1, from - to);
+        }
+        heights[to] = h;
+        widths[to] = w;
+        visible[to] = v;
+        filtered[to] = f;
+        if (filteredCount > 0) filteredTreeValid = false;
+        heightTreeValid = false;
+        dirtyLo = Math.min(dirtyLo, Math.min(from, to));
+        dirtyHi = Math.max(dirtyHi, Math.max(from, to));
+    }
+
+    /**
+     * Change the height of one row.
+     * @param index the index of the row
+     * @param height the new height
+     * @return true if the height changed.
+     */
+    public boolean setHeight(int index, int height) {
+        checkIndex(index, size - 1);
+        if (heights[index] == height) return false;
+        if (heightTreeValid) {
+            int delta = height - heights[index];
+            for (int i = index + 1; i <= size; i += i & -i) heightTree[i] += delta;
+        }
+        heights[index] = height;
+        dirtyLo = Math.min(dirtyLo, index);
+        dirtyHi = Math.max(dirtyHi, index);
+        return true;
+    }
+
+    public int getHeight(int index) {
+        checkIndex(index, size - 1);
+        return heights[index];
+    }
+
+    /**
+     * Store the measured size of one row.
+     * @param index the index of the row
+     * @param height the height the row should have
+     * @param width the preferred width of the row
+     * @param isVisible true if the row is visible
+     */
+    public void setSize(int index, int height, int width, boolean isVisible) {
+        setHeight(index, height);
+        if (width >= maxWidth) {
+            maxWidth = width;
+        } else if (widths[index] >= maxWidth) {
+            maxWidthValid = false;
+        }
+        widths[index] = width;
+        visible[index] = isVisible;
+    }
+
+    /**
+     * @param index the index of the row
+     * @return the preferred width of the row, or -1 if it has not been measured.
+     */
+    public int getWidth(int index) {
+        checkIndex(index, size - 1);
+        return widths[index];
+    }
+
+    public boolean isVisible(int index) {
+        checkIndex(index, size - 1);
+        return visible[index];
+    }
+
+    /**
+     * Forget the measured size of one row, so the next layout measures it again.
+     * @param index the index of the row
+     */
+    public void remeasure(int index) {
+        checkIndex(index, size - 1);
+        if (widths[index] >= maxWidth) maxWidthValid = false;
+        widths[index] = -1;
+    }
+
+    /**
+     * Hide or show one row because of the list's filter.  The next layout measures the row again.
+     * @param index the index of the row
+     * @param isFiltered true if the filter hides the row
+     * @return true if the flag changed.
+     */
+    public boolean setFiltered(int index, boolean isFiltered) {
+        checkIndex(index, size - 1);
+        if (filtered[index] == isFiltered) return false;
+        filtered[index] = isFiltered;
+        filteredCount += isFiltered ? 1 : -1;
+        if (filteredTreeValid) {
+            for (int i = index + 1; i <= size; i += i & -i) filteredTree[i] += isFiltered ? 1 : -1;
+        }
+        return true;
+    }
+
+    public boolean isFiltered(int index) {
+        checkIndex(index, size - 1);
+        return filtered[index];
+    }
+
+    /**
+     * @return the number of rows not hidden by the filter.
+     */
+    public int getUnfilteredCount() {
+        return size - filteredCount;
+    }
+
+    /**
+     * @param index the index of a row
+     * @return the number of rows before it not hidden by the filter, or -1 if the filter hides the row.
+     */
+    public int toViewIndex(int index) {
+        checkIndex(index, size - 1);
+        if (filtered[index]) return -1;
+        if (filteredCount == 0) return index;
+        ensureFilteredTree();
+        int hidden = 0;
+        for (int i = index; i > 0; i -= i & -i) hidden += filteredTree[i];
+        return index - hidden;
+    }
+
+    /**
+     * @param viewIndex an index counting only the rows not hidden by the filter
+     * @return the index of that row among all rows.
+     */
+    public int toModelIndex(int viewIndex) {
+        checkIndex(viewIndex, size - filteredCount - 1);
+        if (filteredCount == 0) return viewIndex;
+        ensureFilteredTree();
+        // the longest run of rows from the top with no more than viewIndex shown rows in it ends just before the row.
+        int pos = 0;
+        int remaining = viewIndex;
+        for (int step = Integer.highestOneBit(size); step > 0; step >>= 1) {
+            int next = pos + step;
+            if (next > size) continue;
+            int shown = step - filteredTree[next];
+            if (shown <= remaining) {
+                pos = next;
+                remaining -= shown;
+            }
+        }
+        return pos;
+    }
+
+    private void ensureFilteredTree() {
+        if (filteredTreeValid) return;
+        for (int i = 1; i <= size; ++i) filteredTree[i] = filtered[i - 1] ? 1 : 0;
+        for (int i = 1; i <= size; ++i) {
+            int parent = i + (i & -i);
+            if (parent <= size) filteredTree[parent] += filteredTree[i];
+        }
+        filteredTreeValid = true;
+    }
+
+    /**
+     * @return the widest preferred width of all measured rows.
+     */
+    public int getMaxWidth() {
+        if (!maxWidthValid) {
+            maxWidth = 0;
+            for (int i = 0; i < size; ++i) maxWidth = Math.max(maxWidth, widths[i]);
+            maxWidthValid = true;
+        }
+        return maxWidth;
+    }
+
+    /**
+     * @return the first row changed since <code>clearDirty()</code>, or <code>Integer.MAX_VALUE</code> if none.
+     */
+    public int getFirstDirty() {
+        return dirtyLo;
+    }
+
+    /**
+     * @return the last row changed since <code>clearDirty()</code>.  Rows after this one have not changed size or
+     * order, although they may have moved up or down.
+     */
+    public int getLastDirty() {
+        return dirtyHi;
+    }
+
+    public void clearDirty() {
+        dirtyLo = Integer.MAX_VALUE;
+        dirtyHi = -1;
+    }
+
+    /**
+     * @param index the index of the row, or <code>size()</code> for the bottom of the last row.
+     * @return the top of the row.
+     */
+    public int getTop(int index) {
+        checkIndex(index, size);
+        ensureHeightTree();
+        return prefixHeight(index);
+    }
+
+    public int getTotalHeight() {
+        return getTop(size);
+    }
+
+    /**
+     * @param y the y coordinate
+     * @return the index of the row that contains <code>y</code>, or -1 if no row does.
+     */
+    public int getRowAt(int y) {
+        if (y < 0) return -1;
+        int row = getRowBelow(y);
+        return row < size ? row : -1;
+    }
+
+    /**
+     * @param y the y coordinate
+     * @return the index of the first row whose middle is below <code>y</code>, or <code>size()</code> if there is none.
+     */
+    public int getDropIndex(int y) {
+        // rows above the one that contains y end at or above y, so their middles are too.  rows below it start below.
+        int row = getRowBelow(y);
+        if (row == size) return size;
+        return y < prefixHeight(row) + heights[row] / 2 ? row : row + 1;
+    }
+
+    /**
+     * @return the number of rows that end at or above <code>y</code>, which is the index of the row that contains
+     * <code>y</code> if there is one.
+     */
+    private int getRowBelow(int y) {
+        ensureHeightTree();
+        // heights are never negative, so the tree can be walked down like the filter's.
+        int pos = 0;
+        int remaining = y;
+        for (int step = Integer.highestOneBit(size); step > 0; step >>= 1) {
+            int next = pos + step;
+            if (next > size) continue;
+            if (heightTree[next] <= remaining) {
+                pos = next;
+                remaining -= heightTree[next];
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * @return the sum of the heights of the first <code>count</code> rows.  The tree must be up to date.
+     */
+    private int prefixHeight(int count) {
+        int sum = 0;
+        for (int i = count; i > 0; i -= i & -i) sum += heightTree[i];
+        return sum;
+    }
+
+    private void ensureHeightTree() {
+        if (heightTreeValid) return;
+        for (int i = 1; i <= size; ++i) heightTree[i] = heights[i - 1];
+        for (int i = 1; i <= size; ++i) {
+            int parent = i + (i & -i);
+            if (parent <= size) heightTree[parent] += heightTree[i];
+        }
+        heightTreeValid = true;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= heights.length) return;
+        int newLength = Math.max(capacity, heights.length * 2);
+        heights = Arrays.copyOf(heights, newLength);
+        widths = Arrays.copyOf(widths, newLength);
+        visible = Arrays.copyOf(visible, newLength);
+        filtered = Arrays.copyOf(filtered, newLength);
+        filteredTree = Arrays.copyOf(filteredTree, newLength + 1);
+        heightTree = Arrays.copyOf(heightTree, newLength + 1);
+    }
+
+    private static void checkIndex(int index, int max) {
+        if (index < 0 || index > max) throw new IndexOutOfBoundsException("index " + index + " out of range 0.." + max);
+    }
+}
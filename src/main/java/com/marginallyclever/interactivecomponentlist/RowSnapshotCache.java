@@ -0,0 +1,244 @@
+package com.marginallyclever.interactivecomponentlist;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>{@link RowSnapshotCache} lets a {@link InteractiveComponentList} paint its rows from pictures taken of them
+ * while a drag is in progress, so that moving the drop line and auto-scrolling do not paint every row that is
+ * costly to paint again and again.</p>
+ * <p>The first time a row is painted during a drag it is painted once into a {@link BufferedImage} at the scale of
+ * the screen.  After that the picture is drawn instead, until the row changes size, is invalidated, is shown or
+ * hidden, or a bound property of the row or of the component in it changes.  The list hears about those from the row
+ * itself, so a row that only repaints, such as an animation, keeps its old picture.</p>
+ * <p>With <code>setTrackRepaints(true)</code> the cache also hears about every repaint inside a row, by installing a
+ * {@link RepaintManager} of its own for the length of the drag.  That replaces the manager of the whole application,
+ * which no longer paints through a buffer strategy meanwhile, so it is off unless asked for.  If the application has
+ * installed its own {@link RepaintManager} it is left alone.</p>
+ * <p>Pictures are kept in least recently used order and the oldest are dropped once they need more than the memory
+ * limit.  A row too big to fit on its own is painted live.  When the drag ends every picture is dropped and the list
+ * is repainted from the real rows.</p>
+ */
+class RowSnapshotCache {
+    static final long DEFAULT_MEMORY_LIMIT = 32L << 20;
+
+    private static class Snapshot {
+        final BufferedImage image;
+        final int width, height;
+        final double scaleX, scaleY;
+
+        Snapshot(BufferedImage image, int width, int height, double scaleX, double scaleY) {
+            this.image = image;
+            this.width = width;
+            this.height = height;
+            this.scaleX = scaleX;
+            this.scaleY = scaleY;
+        }
+
+        long getMemory() {
+            return 4L * image.getWidth() * image.getHeight();
+        }
+
+        boolean fits(Component row, double sx, double sy) {
+            return row.getWidth() == width && row.getHeight() == height && sx == scaleX && sy == scaleY;
+        }
+    }
+
+    /**
+     * Tells the cache which rows asked to be repainted, then does what the default {@link RepaintManager} does.
+     */
+    private class TrackingRepaintManager extends RepaintManager {
+        @Override
+        public void addDirtyRegion(JComponent c, int x, int y, int w, int h) {
+            invalidateRowOf(c);
+            super.addDirtyRegion(c, x, y, w, h);
+        }
+
+        @Override
+        public synchronized void addInvalidComponent(JComponent invalidComponent) {
+            invalidateRowOf(invalidComponent);
+            super.addInvalidComponent(invalidComponent);
+        }
+    }
+
+    private final InteractiveComponentList list;
+    private final LinkedHashMap<Component, Snapshot> snapshots = new LinkedHashMap<>(16, 0.75f, true);
+    private boolean enabled = false;
+    private long memoryLimit = DEFAULT_MEMORY_LIMIT;
+    private long memoryUsed = 0;
+    private boolean trackRepaints = false;
+    private boolean active = false;
+    private RepaintManager installed = null;
+    private RepaintManager previous = null;
+
+    RowSnapshotCache(InteractiveComponentList list) {
+        this.list = list;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (!enabled) end();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setMemoryLimit(long bytes) {
+        if (bytes < 0) throw new IllegalArgumentException("bytes " + bytes);
+        memoryLimit = bytes;
+        trim();
+    }
+
+    public long getMemoryLimit() {
+        return memoryLimit;
+    }
+
+    /**
+     * @param track true to hear about every repaint inside a row during a drag, at the cost of replacing the
+     *              application's {@link RepaintManager} meanwhile.  Takes effect from the next drag.
+     */
+    public void setTrackRepaints(boolean track) {
+        trackRepaints = track;
+    }
+
+    public boolean isTrackingRepaints() {
+        return trackRepaints;
+    }
+
+    public long getMemoryUsed() {
+        return memoryUsed;
+    }
+
+    /**
+     * @return true if rows are painted from pictures now.
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * A drag started.  Paint rows from pictures until <code>end()</code>.
+     */
+    public void begin() {
+        if (!enabled || isActive()) return;
+        active = true;
+        if (!trackRepaints) return;
+        RepaintManager current = RepaintManager.currentManager(list);
+        // anything else may do more than the default, which would be lost while it is replaced.
+        if (current.getClass() != RepaintManager.class) return;
+        previous = current;
+        installed = new TrackingRepaintManager();
+        RepaintManager.setCurrentManager(installed);
+    }
+
+    /**
+     * The drag ended.  Drop every picture and paint the real rows again.
+     */
+    public void end() {
+        if (!isActive()) return;
+        active = false;
+        if (installed != null && RepaintManager.currentManager(list) == installed) {
+            RepaintManager.setCurrentManager(previous);
+        }
+        installed = null;
+        previous = null;
+        snapshots.clear();
+        memoryUsed = 0;
+        list.repaint();
+    }
+
+    /**
+     * Forget the picture of one row.
+     */
+    public void invalidate(Component row) {
+        Snapshot s = snapshots.remove(row);
+        if (s != null) memoryUsed -= s.getMemory();
+    }
+
+    private void invalidateRowOf(Component c) {
+        if (snapshots.isEmpty()) return;
+        for (Component p = c; p != null; p = p.getParent()) {
+            if (p.getParent() == list) {
+                invalidate(p);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Paint the rows of the list inside the clip, from pictures where possible.
+     * @param g the graphics context of the list
+     */
+    public void paintRows(Graphics g) {
+        int count = list.getComponentCount();
+        if (count == 0) return;
+        Rectangle clip = g.getClipBounds();
+        if (clip == null) clip = new Rectangle(0, 0, list.getWidth(), list.getHeight());
+        int first = list.getRowIndexAt(clip.y);
+        if (first < 0) first = clip.y < list.getInsets().top ? 0 : count;
+        int last = list.getRowIndexAt(clip.y + clip.height - 1);
+        if (last < 0) last = count - 1;
+
+        AffineTransform t = g instanceof Graphics2D g2 ? g2.getTransform() : new AffineTransform();
+        double sx = t.getScaleX();
+        double sy = t.getScaleY();
+        for (int i = first; i <= last; ++i) {
+            Component row = list.getComponent(i);
+            if (!row.isVisible() || row.getWidth() <= 0 || row.getHeight() <= 0) continue;
+            Snapshot s = snapshots.get(row);
+            if (s == null || !s.fits(row, sx, sy)) {
+                invalidate(row);
+                s = take(row, sx, sy);
+            }
+            if (s != null) {
+                g.drawImage(s.image, row.getX(), row.getY(), row.getWidth(), row.getHeight(), null);
+            } else {
+                Graphics cg = g.create(row.getX(), row.getY(), row.getWidth(), row.getHeight());
+                try {
+                    row.paint(cg);
+                } finally {
+                    cg.dispose();
+                }
+            }
+        }
+    }
+
+    /**
+     * @return a new picture of the row, or null if it is too big to keep.
+     */
+    private Snapshot take(Component row, double sx, double sy) {
+        int w = (int) Math.ceil(row.getWidth() * sx);
+        int h = (int) Math.ceil(row.getHeight() * sy);
+        if (4L * w * h > memoryLimit) return null;
+        GraphicsConfiguration gc = list.getGraphicsConfiguration();
+        BufferedImage image = gc != null
+                ? gc.createCompatibleImage(w, h, Transparency.TRANSLUCENT)
+                : new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.scale(sx, sy);
+            row.paint(g);
+        } finally {
+            g.dispose();
+        }
+        Snapshot s = new Snapshot(image, row.getWidth(), row.getHeight(), sx, sy);
+        snapshots.put(row, s);
+        memoryUsed += s.getMemory();
+        trim();
+        return s;
+    }
+
+    private void trim() {
+        Iterator<Map.Entry<Component, Snapshot>> i = snapshots.entrySet().iterator();
+        while (memoryUsed > memoryLimit && i.hasNext()) {
+            memoryUsed -= i.next().getValue().getMemory();
+            i.remove();
+        }
+    }
+}
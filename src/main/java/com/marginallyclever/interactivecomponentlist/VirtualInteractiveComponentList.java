@@ -0,0 +1,473 @@
+package com.marginallyclever.interactivecomponentlist;
+
+import javax.swing.*;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import java.awt.*;
+import java.awt.event.ActionEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>{@link VirtualInteractiveComponentList} is a lightweight list for very long lists of items.  Instead of holding
+ * one {@link Component} per item it is fed by a {@link DefaultListModel} and a {@link RowFactory}, and only creates
+ * enough {@link InteractiveComponentListMiddle} rows to cover the visible part of the enclosing {@link JViewport}.
+ * Rows that scroll out of view are recycled for the rows that scroll into view.</p>
+ * <p>It is not a {@link InteractiveComponentList} and does much less.  Rows are reordered within the list by dragging
+ * their handle with the mouse, one at a time: there is no drag and drop to or from other lists, no dragging of the
+ * selected rows as a block, no {@link InteractiveComponentList.RowStyle#PAINTED} rows, no batches and no
+ * {@link InteractiveComponentListEvent}s.  The model is the list's only state, so listen to the model for changes; a
+ * drag arrives there as an {@link ListDataEvent#INTERVAL_REMOVED} followed by an {@link ListDataEvent#INTERVAL_ADDED}.
+ * </p>
+ * <p>All rows have the same height.  Set it with <code>setFixedRowHeight(int)</code> or it will be measured from
+ * the first item in the model, on a row of its own that is never shown.</p>
+ * <p>When the model changes only the rows on screen that show a changed item are bound again.  Rows that show items
+ * which merely moved up or down follow them.</p>
+ * <p>Selection works on model indexes, so <code>getSelectedIndices()</code> and <code>getSelectedValues()</code>
+ * include rows that are not on screen.</p>
+ * @param <T> the type of the items in the model.
+ */
+public class VirtualInteractiveComponentList<T> extends JPanel implements Scrollable {
+    /**
+     * Creates and updates the {@link Component}s shown by a {@link VirtualInteractiveComponentList}.
+     * @param <T> the type of the items in the model.
+     */
+    public interface RowFactory<T> {
+        /**
+         * @return a new component.  It will be wrapped in a {@link InteractiveComponentListMiddle} and reused for
+         * many items.
+         */
+        Component createRow();
+
+        /**
+         * Update a component made by <code>createRow()</code> so that it shows the given item.
+         * @param row the component to update
+         * @param value the item to show
+         * @param index the model index of the item
+         */
+        void bindRow(Component row, T value, int index);
+    }
+
+    /**
+     * A recycled row and the model index it currently shows, or -1 if it is not in use.
+     */
+    private static class Slot {
+        final InteractiveComponentListMiddle middle;
+        int index = -1;
+
+        Slot(InteractiveComponentListMiddle middle) {
+            this.middle = middle;
+        }
+    }
+
+    private final DefaultListModel<T> model;
+    private final RowFactory<T> factory;
+    private final List<Slot> slots = new ArrayList<>();
+    // measures the height of the rows.  never added to the list.
+    private InteractiveComponentListMiddle measuringRow;
+    private final InteractiveComponentListSelectionModel selectionModel = new InteractiveComponentListSelectionModel();
+    private int fixedRowHeight = -1;
+    private int measuredRowHeight = -1;
+    private int measuredRowWidth = 0;
+    private int visibleRowCount = 8;
+    private boolean showCheckboxes = false;
+    private int draggedIndex = -1;
+    private final DropLineIndicator lineIndicator = new DropLineIndicator(this);
+    private final DragAutoScroller autoScroller = new DragAutoScroller(this, y -> updateLineIndicator(getRowTop(getDropIndex(new Point(0, y)))));
+    private boolean moving = false;
+
+    private final ListDataListener modelListener = new ListDataListener() {
+        @Override
+        public void intervalAdded(ListDataEvent e) {
+            int count = e.getIndex1() - e.getIndex0() + 1;
+            if (!moving) selectionModel.insert(e.getIndex0(), count);
+            for (Slot slot : slots) {
+                if (slot.index >= e.getIndex0()) slot.index += count;
+            }
+            if (draggedIndex >= e.getIndex0()) draggedIndex += count;
+            modelChanged();
+        }
+
+        @Override
+        public void intervalRemoved(ListDataEvent e) {
+            int count = e.getIndex1() - e.getIndex0() + 1;
+            if (!moving) selectionModel.remove(e.getIndex0(), count);
+            for (Slot slot : slots) {
+                if (slot.index > e.getIndex1()) slot.index -= count;
+                else if (slot.index >= e.getIndex0()) slot.index = -1;
+            }
+            if (draggedIndex > e.getIndex1()) draggedIndex -= count;
+            else if (draggedIndex >= e.getIndex0()) draggedIndex = -1;
+            modelChanged();
+        }
+
+        @Override
+        public void contentsChanged(ListDataEvent e) {
+            // a negative index means anything may have changed.
+            boolean all = e.getIndex0() < 0 || e.getIndex1() < 0;
+            for (Slot slot : slots) {
+                if (all || (slot.index >= e.getIndex0() && slot.index <= e.getIndex1())) slot.index = -1;
+            }
+            modelChanged();
+        }
+    };
+
+    /**
+     * @param model the items to show
+     * @param factory creates and updates the rows that show the items
+     */
+    public VirtualInteractiveComponentList(DefaultListModel<T> model, RowFactory<T> factory) {
+        super(null);
+        this.model = model;
+        this.factory = factory;
+        model.addListDataListener(modelListener);
+        selectionModel.insert(0, model.getSize());
+        selectionModel.addListSelectionListener(e -> {
+            for (Slot slot : slots) {
+                if (slot.index >= e.getFirstIndex() && slot.index <= e.getLastIndex()) {
+                    slot.middle.getCheck().setSelected(selectionModel.isSelected(slot.index));
+                }
+            }
+        });
+    }
+
+    public DefaultListModel<T> getModel() {
+        return model;
+    }
+
+    /**
+     * Set the height of every row.
+     * @param height the height in pixels, or -1 to measure the first item in the model.
+     */
+    public void setFixedRowHeight(int height) {
+        fixedRowHeight = height;
+        revalidate();
+        repaint();
+    }
+
+    public int getFixedRowHeight() {
+        return fixedRowHeight;
+    }
+
+    /**
+     * @return the height of every row, or -1 if it can't be measured yet.
+     */
+    public int getRowHeight() {
+        if (fixedRowHeight > 0) return fixedRowHeight;
+        if (measuredRowHeight < 0 && !model.isEmpty()) {
+            if (measuringRow == null) measuringRow = new InteractiveComponentListMiddle(factory.createRow(), false);
+            measuringRow.getCheck().setVisible(showCheckboxes);
+            factory.bindRow(measuringRow.getInnerComponent(), model.get(0), 0);
+            Dimension d = measuringRow.getPreferredSize();
+            measuredRowHeight = d.height;
+            measuredRowWidth = d.width;
+        }
+        return measuredRowHeight;
+    }
+
+    /**
+     * Set the number of rows the enclosing {@link JScrollPane} should try to show.
+     * @param count the number of rows
+     */
+    public void setVisibleRowCount(int count) {
+        visibleRowCount = Math.max(1, count);
+        revalidate();
+    }
+
+    public int getVisibleRowCount() {
+        return visibleRowCount;
+    }
+
+    /**
+     * Enable or disable the selection checkboxes.
+     * @param showCheckboxes true to show checkboxes, false to hide them and clear the selection.
+     */
+    public void enableSelection(boolean showCheckboxes) {
+        this.showCheckboxes = showCheckboxes;
+        if (!showCheckboxes) selectionModel.clearSelection();
+        for (Slot slot : slots) {
+            slot.middle.getCheck().setVisible(showCheckboxes);
+        }
+    }
+
+    /**
+     * @return the model that remembers which items are selected, by model index.
+     */
+    public InteractiveComponentListSelectionModel getSelectionModel() {
+        return selectionModel;
+    }
+
+    /**
+     * Select or deselect one item.  The item does not need to be on screen.
+     * @param index the model index
+     * @param selected true to select the item
+     */
+    public void setSelected(int index, boolean selected) {
+        selectionModel.setSelected(index, selected);
+    }
+
+    public boolean isSelected(int index) {
+        return selectionModel.isSelected(index);
+    }
+
+    /**
+     * @return the model indexes of all selected items, in ascending order.
+     */
+    public int[] getSelectedIndices() {
+        return selectionModel.getSelectedIndices();
+    }
+
+    /**
+     * @return all selected items, including those that are not on screen.
+     */
+    public List<T> getSelectedValues() {
+        List<T> list = new ArrayList<>(selectionModel.getSelectedCount());
+        selectionModel.forEachSelected(i -> list.add(model.get(i)));
+        return list;
+    }
+
+    /**
+     * Move one item in the model, keeping its selection state.
+     * @param from the current index of the item
+     * @param to the index of the item after the move
+     */
+    public void moveRow(int from, int to) {
+        if (from == to) return;
+        moving = true;
+        try {
+            T value = model.remove(from);
+            model.add(to, value);
+        } finally {
+            moving = false;
+        }
+        selectionModel.move(from, to);
+    }
+
+    /**
+     * The slots that show a changed item have already been freed, and the others follow their items.
+     */
+    private void modelChanged() {
+        if (model.isEmpty()) measuredRowHeight = -1;
+        revalidate();
+        repaint();
+    }
+
+    private Slot createSlot() {
+        Slot slot = new Slot(new InteractiveComponentListMiddle(factory.createRow(), false));
+        JCheckBox check = slot.middle.getCheck();
+        check.setVisible(showCheckboxes);
+        check.addActionListener(e -> {
+            if (slot.index < 0) return;
+            if ((e.getModifiers() & ActionEvent.SHIFT_MASK) != 0) {
+                selectionModel.extendSelection(slot.index);
+            } else {
+                selectionModel.setSelected(slot.index, check.isSelected());
+            }
+        });
+
+        MouseAdapter dragger = new MouseAdapter() {
+            @Override
+            public void mousePressed(MouseEvent e) {
+                draggedIndex = slot.index;
+            }
+
+            @Override
+            public void mouseDragged(MouseEvent e) {
+                if (draggedIndex < 0) return;
+                Point p = SwingUtilities.convertPoint(e.getComponent(), e.getPoint(), VirtualInteractiveComponentList.this);
+                updateLineIndicator(getRowTop(getDropIndex(p)));
+                autoScroller.update(p);
+            }
+
+            @Override
+            public void mouseReleased(MouseEvent e) {
+                if (draggedIndex < 0) return;
+                Point p = SwingUtilities.convertPoint(e.getComponent(), e.getPoint(), VirtualInteractiveComponentList.this);
+                autoScroller.stop();
+                removeLineIndicator();
+                moveDroppableHere(p.y);
+                draggedIndex = -1;
+            }
+        };
+        slot.middle.getHandle().addMouseListener(dragger);
+        slot.middle.getHandle().addMouseMotionListener(dragger);
+
+        slots.add(slot);
+        add(slot.middle);
+        return slot;
+    }
+
+    private void bind(Slot slot, int index) {
+        slot.index = index;
+        factory.bindRow(slot.middle.getInnerComponent(), model.get(index), index);
+        slot.middle.getCheck().setSelected(selectionModel.isSelected(index));
+    }
+
+    private int getRowTop(int index) {
+        return getInsets().top + index * Math.max(0, getRowHeight());
+    }
+
+    @Override
+    public void setBounds(int x, int y, int width, int height) {
+        boolean changed = x != getX() || y != getY() || width != getWidth() || height != getHeight();
+        super.setBounds(x, y, width, height);
+        // a JViewport scrolls by moving the view.  bind the new rows before the viewport paints them.
+        if (changed) updateVisibleRows();
+    }
+
+    @Override
+    public void doLayout() {
+        updateVisibleRows();
+    }
+
+    /**
+     * Bind a {@link Slot} to every row inside the visible rectangle, reusing slots that have scrolled out of view.
+     * The slot being dragged is never recycled so that it keeps receiving mouse events.
+     */
+    private void updateVisibleRows() {
+        int h = getRowHeight();
+        Rectangle view = getVisibleRect();
+        int first = 0, last = -1;
+        if (h > 0 && !view.isEmpty()) {
+            int top = getInsets().top;
+            first = Math.max(0, (view.y - top) / h);
+            last = Math.min(model.getSize() - 1, (view.y + view.height - 1 - top) / h);
+        }
+
+        Slot[] inRange = new Slot[Math.max(0, last - first + 1)];
+        List<Slot> free = new ArrayList<>();
+        Insets insets = getInsets();
+        int width = getWidth() - insets.left - insets.right;
+        for (Slot slot : slots) {
+            if (slot.index >= first && slot.index <= last && inRange[slot.index - first] == null) {
+                inRange[slot.index - first] = slot;
+            } else if (slot.index >= 0 && slot.index == draggedIndex) {
+                slot.middle.setBounds(insets.left, getRowTop(slot.index), width, h);
+            } else {
+                free.add(slot);
+            }
+        }
+
+        int f = 0;
+        for (int i = first; i <= last; ++i) {
+            Slot slot = inRange[i - first];
+            if (slot == null) {
+                slot = f < free.size() ? free.get(f++) : createSlot();
+                bind(slot, i);
+            }
+            slot.middle.setBounds(insets.left, getRowTop(i), width, h);
+            if (!slot.middle.isVisible()) slot.middle.setVisible(true);
+        }
+        for (; f < free.size(); ++f) {
+            Slot slot = free.get(f);
+            slot.index = -1;
+            if (slot.middle.isVisible()) slot.middle.setVisible(false);
+        }
+    }
+
+    @Override
+    public Dimension getPreferredSize() {
+        if (isPreferredSizeSet()) return super.getPreferredSize();
+        Insets insets = getInsets();
+        int h = Math.max(0, getRowHeight());
+        return new Dimension(
+                insets.left + insets.right + measuredRowWidth,
+                insets.top + insets.bottom + h * model.getSize());
+    }
+
+    /**
+     * Get the index of the item that should be dropped at the given point.
+     * @param dropPoint the point where the item should be dropped
+     * @return the model index where the item should be dropped
+     */
+    public int getDropIndex(Point dropPoint) {
+        int h = getRowHeight();
+        if (h <= 0) return 0;
+        int i = Math.floorDiv(dropPoint.y - getInsets().top - h / 2, h) + 1;
+        return Math.max(0, Math.min(model.getSize(), i));
+    }
+
+    public void moveDroppableHere(int lineY) {
+        if (draggedIndex < 0 || draggedIndex >= model.getSize()) return;
+        int dropIndex = getDropIndex(new Point(0, lineY));
+        // Adjust dropIndex if necessary
+        dropIndex = dropIndex > draggedIndex ? dropIndex - 1 : dropIndex;
+        moveRow(draggedIndex, dropIndex);
+    }
+
+    public void updateLineIndicator(int mouseY) {
+        lineIndicator.moveTo(mouseY);
+    }
+
+    public void removeLineIndicator() {
+        lineIndicator.clear();
+    }
+
+    @Override
+    protected void paintChildren(Graphics g) {
+        super.paintChildren(g);
+        lineIndicator.paint(g);
+    }
+
+    @Override
+    public Dimension getPreferredScrollableViewportSize() {
+        Dimension d = getPreferredSize();
+        int h = getRowHeight();
+        if (h > 0) {
+            Insets insets = getInsets();
+            d.height = Math.min(d.height, insets.top + insets.bottom + h * visibleRowCount);
+        }
+        return d;
+    }
+
+    @Override
+    public int getScrollableUnitIncrement(Rectangle visibleRect, int orientation, int direction) {
+        int h = getRowHeight();
+        return (orientation == SwingConstants.VERTICAL && h > 0) ? h : 10;
+    }
+
+    @Override
+    public int getScrollableBlockIncrement(Rectangle visibleRect, int orientation, int direction) {
+        return orientation == SwingConstants.VERTICAL ? visibleRect.height : visibleRect.width;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportWidth() {
+        return true;
+    }
+
+    @Override
+    public boolean getScrollableTracksViewportHeight() {
+        return getParent() instanceof JViewport viewport && viewport.getHeight() > getPreferredSize().height;
+    }
+
+    public static void main(String[] args) {
+        SwingUtilities.invokeLater(() -> {
+            DefaultListModel<String> model = new DefaultListModel<>();
+            for (int i = 0; i < 100_000; ++i) model.addElement("Item " + (i + 1));
+
+            VirtualInteractiveComponentList<String> panel = new VirtualInteractiveComponentList<>(model, new RowFactory<>() {
+                @Override
+                public Component createRow() {
+                    return new JButton();
+                }
+
+                @Override
+                public void bindRow(Component row, String value, int index) {
+                    ((JButton) row).setText(value);
+                }
+            });
+            panel.enableSelection(true);
+
+            JFrame frame = new JFrame();
+            frame.add(new JScrollPane(panel));
+            frame.setTitle("Virtual list with 100,000 items");
+            frame.setSize(250, 400);
+            frame.setDefaultCloseOperation(WindowConstants.EXIT_ON_CLOSE);
+            frame.setLocationRelativeTo(null);
+            frame.setVisible(true);
+        });
+    }
+}
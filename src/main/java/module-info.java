@@ -1,6 +1,8 @@
 module InteractiveComponentList {
     requires java.datatransfer;
     requires java.desktop;
+    // optional.  without it the list fires no Flight Recorder events.
+    requires static jdk.jfr;
 
     exports com.marginallyclever.interactivecomponentlist;
 }
\ No newline at end of file
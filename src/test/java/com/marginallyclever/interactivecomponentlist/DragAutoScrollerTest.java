@@ -0,0 +1,54 @@
+package com.marginallyclever.interactivecomponentlist;
+
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DragAutoScrollerTest {
+    @Test
+    public void testScrollsWhileHeldAtEdge() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            JPanel view = new JPanel();
+            view.setPreferredSize(new Dimension(100, 10000));
+            JViewport viewport = new JViewport();
+            viewport.setView(view);
+            viewport.setSize(100, 400);
+            view.setSize(view.getPreferredSize());
+
+            List<Integer> pointerY = new ArrayList<>();
+            DragAutoScroller scroller = new DragAutoScroller(view, pointerY::add);
+            try {
+                // points are relative to the view, which starts at the top.  middle of the viewport: no scrolling.
+                scroller.update(new Point(50, 200));
+                assertFalse(scroller.isScrolling());
+
+                // half way into the bottom zone.
+                scroller.update(new Point(50, 399 - DragAutoScroller.EDGE / 2));
+                assertTrue(scroller.isScrolling());
+                assertTrue(scroller.scroll(0.1));
+                int halfSpeed = viewport.getViewPosition().y;
+                assertEquals(DragAutoScroller.MAX_SPEED * 0.1 / 2, halfSpeed, 2);
+                // the pointer has not moved but the list has, so the list is told where the pointer is now.
+                assertEquals(399 - DragAutoScroller.EDGE / 2 + halfSpeed, pointerY.get(0));
+
+                // deeper is faster.
+                scroller.update(new Point(50, halfSpeed + 399));
+                assertTrue(scroller.scroll(0.1));
+                assertTrue(viewport.getViewPosition().y - halfSpeed > halfSpeed);
+
+                // the top zone scrolls back up and stops at the top.
+                scroller.update(new Point(50, viewport.getViewPosition().y));
+                while (scroller.scroll(0.1)) ;
+                assertEquals(0, viewport.getViewPosition().y);
+                assertFalse(scroller.isScrolling());
+            } finally {
+                scroller.stop();
+            }
+        });
+    }
+}
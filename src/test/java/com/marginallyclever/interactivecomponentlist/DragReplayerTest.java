@@ -0,0 +1,157 @@
+package com.marginallyclever.interactivecomponentlist;
+
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.awt.*;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DragReplayerTest {
+    private static InteractiveComponentList createList(InteractiveComponentList.RowStyle style, int rows) {
+        InteractiveComponentList list = new InteractiveComponentList(style);
+        for (int i = 0; i < rows; ++i) list.add(new JLabel("Item " + i));
+        list.setSize(list.getPreferredSize());
+        list.doLayout();
+        return list;
+    }
+
+    private static List<String> texts(InteractiveComponentList list) {
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < list.getComponentCount(); ++i) texts.add(((JLabel) list.getInnerComponent(i)).getText());
+        return texts;
+    }
+
+    /**
+     * Drag a row over the list the way the drop target listeners would, and drop it on the last point.
+     */
+    private static void drag(InteractiveComponentList list, int row, int... ys) {
+        list.dragStarted(row);
+        for (int y : ys) list.dragOverAt(new Point(5, y));
+        list.dropOnList(list.getComponent(row));
+        list.doLayout();
+    }
+
+    @Test
+    public void testRecordAndReplay() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            // points in a trace are pixels, so a trace is replayed on a list laid out like the one it was recorded on.
+            for (InteractiveComponentList.RowStyle style : InteractiveComponentList.RowStyle.values()) {
+                InteractiveComponentList recorded = createList(style, 20);
+                DragTrace trace = new DragTrace();
+                recorded.setDragRecorder(trace);
+                int h = recorded.getComponent(0).getHeight();
+                drag(recorded, 2, h * 5, h * 9 + 1);
+                drag(recorded, 15, h * 10, h * 3, h);
+                drag(recorded, 0, h * 20 - 1);
+                recorded.dragStarted(4);
+                recorded.dragExited();
+                recorded.dragFinished();
+                recorded.setDragRecorder(null);
+                assertEquals(4, trace.getGestureCount());
+
+                DragTrace copy;
+                try {
+                    ByteArrayOutputStream out = new ByteArrayOutputStream();
+                    trace.write(out);
+                    assertEquals(12 + 21 * trace.size(), out.size());
+                    copy = DragTrace.read(new ByteArrayInputStream(out.toByteArray()));
+                } catch (Exception e) {
+                    throw new AssertionError(e);
+                }
+                assertEquals(trace.size(), copy.size());
+                assertEquals(trace.getTime(trace.size() - 1), copy.getTime(copy.size() - 1));
+
+                InteractiveComponentList replayed = createList(style, 20);
+                DragReplayer replayer = new DragReplayer(replayed);
+                replayer.setPaintEachEvent(true);
+                DragReplayer.Result result = replayer.replay(copy);
+                assertNotEquals(texts(createList(style, 20)), texts(replayed));
+                assertEquals(texts(recorded), texts(replayed), style.toString());
+                assertEquals(4, result.getGestureCount());
+                assertEquals(0, result.getDropMismatches(), result.toString());
+                assertTrue(result.isOrderConsistent());
+                assertEquals(6, result.getDragOverLatency().getCount());
+                assertEquals(3, result.getDropLatency().getCount());
+            }
+        });
+    }
+
+    @Test
+    public void testTransferIsNotReplayed() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            InteractiveComponentList source = createList(InteractiveComponentList.RowStyle.COMPONENTS, 5);
+            InteractiveComponentList target = createList(InteractiveComponentList.RowStyle.COMPONENTS, 5);
+            target.setName("target");
+            DragTrace trace = new DragTrace();
+            source.setDragRecorder(trace);
+            source.dragStarted(2);
+            target.dropRow(source.getComponent(2), target.getDropLineY(target.getHeight()));
+            assertEquals(4, source.getComponentCount());
+            assertEquals(DragTrace.TRANSFER, trace.getKind(1));
+            assertEquals(2, trace.getRow(1));
+            assertEquals(target.getHeight(), trace.getY(1));
+
+            DragTrace copy;
+            try {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                trace.write(out);
+                copy = DragTrace.read(new ByteArrayInputStream(out.toByteArray()));
+            } catch (Exception e) {
+                throw new AssertionError(e);
+            }
+            assertEquals("target", copy.getTarget(1));
+            assertNull(copy.getTarget(0));
+
+            InteractiveComponentList replayed = createList(InteractiveComponentList.RowStyle.COMPONENTS, 5);
+            DragReplayer.Result result = new DragReplayer(replayed).replay(copy);
+            assertEquals(1, result.getTransferCount());
+            assertEquals(0, result.getDropLatency().getCount());
+            assertEquals(texts(createList(InteractiveComponentList.RowStyle.COMPONENTS, 5)), texts(replayed),
+                    "A transfer is not replayed as a move inside the list.");
+            assertTrue(result.isOrderConsistent());
+        });
+    }
+
+    /**
+     * Random gestures over a long list.  Run more with <code>-Dsoak.gestures=100000</code>.
+     */
+    @Test
+    public void testSoak() throws Exception {
+        int gestures = Integer.getInteger("soak.gestures", 2000);
+        SwingUtilities.invokeAndWait(() -> {
+            for (InteractiveComponentList.RowStyle style : InteractiveComponentList.RowStyle.values()) {
+                InteractiveComponentList list = createList(style, 200);
+                int height = list.getHeight();
+                Random random = new Random(3);
+                DragTrace trace = new DragTrace();
+                long t = 0;
+                for (int g = 0; g < gestures; ++g) {
+                    trace.addStart(random.nextInt(200), t += 1_000_000);
+                    int y = 0;
+                    for (int i = random.nextInt(8); i >= 0; --i) {
+                        y = random.nextInt(height);
+                        trace.addOver(5, y, t += 16_000_000);
+                    }
+                    trace.addDrop(list.getDropLineY(y), -1, t += 16_000_000);
+                }
+                List<String> before = texts(list);
+
+                DragReplayer.Result result = new DragReplayer(list).replay(trace);
+                assertEquals(gestures, result.getGestureCount());
+                assertEquals(gestures, result.getDropLatency().getCount());
+                assertTrue(result.isOrderConsistent(), result.toString());
+                List<String> after = texts(list);
+                assertNotEquals(before, after);
+                after.sort(null);
+                before.sort(null);
+                assertEquals(before, after, "Rows are only reordered.");
+            }
+        });
+    }
+}
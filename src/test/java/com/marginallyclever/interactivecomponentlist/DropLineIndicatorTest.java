@@ -0,0 +1,95 @@
+package com.marginallyclever.interactivecomponentlist;
+
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DropLineIndicatorTest {
+    /**
+     * Remembers every area it was asked to repaint.
+     */
+    private static class RepaintRecorder extends JPanel {
+        final List<Rectangle> repainted = new ArrayList<>();
+
+        @Override
+        public void repaint(long tm, int x, int y, int width, int height) {
+            if (repainted != null) repainted.add(new Rectangle(x, y, width, height));
+        }
+    }
+
+    private static Rectangle strip(int y, int width) {
+        return new Rectangle(0, y - DropLineIndicator.THICKNESS / 2, width, DropLineIndicator.THICKNESS);
+    }
+
+    @Test
+    public void testOnlyTheOldAndNewStripsAreRepainted() {
+        RepaintRecorder owner = new RepaintRecorder();
+        owner.setSize(200, 1000);
+        DropLineIndicator line = new DropLineIndicator(owner);
+
+        line.moveTo(100);
+        assertEquals(List.of(strip(100, 200)), owner.repainted);
+        owner.repainted.clear();
+        line.moveTo(100);
+        assertTrue(owner.repainted.isEmpty(), "The line did not move.");
+        line.moveTo(300);
+        assertEquals(List.of(strip(100, 200), strip(300, 200)), owner.repainted);
+        owner.repainted.clear();
+        line.clear();
+        assertEquals(List.of(strip(300, 200)), owner.repainted);
+        assertEquals(-1, line.getY());
+        owner.repainted.clear();
+        line.clear();
+        assertTrue(owner.repainted.isEmpty());
+    }
+
+    @Test
+    public void testPaintsOnlyInsideTheClip() {
+        JPanel owner = new JPanel();
+        owner.setSize(50, 100);
+        DropLineIndicator line = new DropLineIndicator(owner);
+        line.moveTo(40);
+        BufferedImage image = new BufferedImage(50, 100, BufferedImage.TYPE_INT_RGB);
+        Graphics g = image.getGraphics();
+        g.setClip(0, 60, 50, 40);
+        line.paint(g);
+        g.setClip(null);
+        assertEquals(0, image.getRGB(10, 40) & 0xffffff, "Outside the clip.");
+        line.paint(g);
+        g.dispose();
+        assertEquals(Color.BLUE.getRGB(), image.getRGB(10, 40));
+    }
+
+    @Test
+    public void testClearedWhenTheDragLeavesOrDrops() {
+        InteractiveComponentList list = new InteractiveComponentList() {
+            @Override
+            public void repaint(long tm, int x, int y, int width, int height) {}
+        };
+        list.setFixedRowHeight(20);
+        for (int i = 0; i < 10; ++i) list.add(new JButton("Item " + i));
+        list.setSize(200, 200);
+        list.doLayout();
+        DropLineIndicator line = list.getLineIndicator();
+        int top = list.getInsets().top;
+
+        list.dragOverAt(new Point(10, top + 45));
+        assertEquals(top + 40, line.getY());
+        list.dragExited();
+        assertEquals(-1, line.getY());
+
+        Component row = list.getComponent(1);
+        list.dragOverAt(new Point(10, top + 85));
+        assertEquals(top + 80, line.getY());
+        assertTrue(InteractiveComponentListMiddle.DADInnerPanelDropTargetListener.dropOnRow(
+                (Container) list.getComponent(4), new Point(10, 5), row));
+        assertEquals(-1, line.getY());
+        assertEquals(3, list.indexOf(row));
+    }
+}
@@ -0,0 +1,475 @@
+package com.marginallyclever.interactivecomponentlist;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import java.awt.*;
+import java.awt.event.ContainerAdapter;
+import java.awt.event.ContainerEvent;
+import java.awt.event.MouseEvent;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InteractiveComponentListBatchTest {
+    private InteractiveComponentList list;
+    private final List<ListDataEvent> events = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        list = new InteractiveComponentList();
+        list.addListener(new ListDataListener() {
+            @Override
+            public void intervalAdded(ListDataEvent e) {
+                events.add(e);
+            }
+
+            @Override
+            public void intervalRemoved(ListDataEvent e) {
+                events.add(e);
+            }
+
+            @Override
+            public void contentsChanged(ListDataEvent e) {
+                events.add(e);
+            }
+        });
+    }
+
+    private static List<Component> buttons(int count) {
+        List<Component> list = new ArrayList<>();
+        for (int i = 0; i < count; ++i) list.add(new JButton("Item " + i));
+        return list;
+    }
+
+    private static void assertEvent(ListDataEvent e, int type, int index0, int index1) {
+        assertEquals(type, e.getType());
+        assertEquals(index0, e.getIndex0());
+        assertEquals(index1, e.getIndex1());
+    }
+
+    @Test
+    public void testAddAllFiresOneEvent() {
+        List<Component> items = buttons(5000);
+        list.addAll(items);
+        assertEquals(5000, list.getComponentCount());
+        assertEquals(1, events.size());
+        assertEvent(events.get(0), ListDataEvent.INTERVAL_ADDED, 0, 4999);
+        assertSame(items.get(1234), list.getInnerComponent(1234));
+    }
+
+    @Test
+    public void testRemoveAllFiresOneEvent() {
+        List<Component> items = buttons(10);
+        list.addAll(items);
+        events.clear();
+
+        list.removeAll(items.subList(3, 6));
+        assertEquals(7, list.getComponentCount());
+        assertEquals(1, events.size());
+        assertEvent(events.get(0), ListDataEvent.INTERVAL_REMOVED, 3, 5);
+        assertSame(items.get(6), list.getInnerComponent(3));
+    }
+
+    @Test
+    public void testReplaceAll() {
+        list.addAll(buttons(10));
+        events.clear();
+
+        List<Component> items = buttons(4);
+        list.replaceAll(items);
+        assertEquals(4, list.getComponentCount());
+        assertEquals(1, events.size());
+        assertEvent(events.get(0), ListDataEvent.CONTENTS_CHANGED, 0, 9);
+        assertSame(items.get(0), list.getInnerComponent(0));
+    }
+
+    @Test
+    public void testNestedUpdate() {
+        list.beginUpdate();
+        list.add(new JButton("a"));
+        list.addAll(buttons(3));
+        assertTrue(events.isEmpty(), "No events until the batch ends.");
+        list.endUpdate();
+        assertFalse(list.isUpdating());
+        assertEquals(1, events.size());
+        assertEvent(events.get(0), ListDataEvent.INTERVAL_ADDED, 0, 3);
+
+        assertThrows(IllegalStateException.class, list::endUpdate);
+    }
+
+    @Test
+    public void testMoveRowDoesNotRemove() {
+        List<Component> items = buttons(10);
+        list.addAll(items);
+        events.clear();
+        List<ContainerEvent> containerEvents = new ArrayList<>();
+        list.addContainerListener(new ContainerAdapter() {
+            @Override
+            public void componentRemoved(ContainerEvent e) {
+                containerEvents.add(e);
+            }
+        });
+        Component row = list.getComponent(2);
+
+        list.moveRow(2, 7);
+        assertSame(row, list.getComponent(7));
+        assertSame(items.get(2), list.getInnerComponent(7));
+        assertSame(items.get(3), list.getInnerComponent(2));
+        assertTrue(containerEvents.isEmpty(), "Moving a row should not remove it.");
+        assertEquals(1, events.size());
+        assertEvent(events.get(0), ListDataEvent.CONTENTS_CHANGED, 2, 7);
+
+        assertThrows(IndexOutOfBoundsException.class, () -> list.moveRow(0, 10));
+    }
+
+    @Test
+    public void testMoveRowsIsOnePermutation() {
+        List<Component> items = buttons(10);
+        list.addAll(items);
+        list.enableSelection(true);
+        list.getSelectionModel().setSelected(1, true);
+        list.getSelectionModel().setSelected(3, true);
+        list.getSelectionModel().setSelected(7, true);
+        events.clear();
+
+        list.moveRows(list.getSelectedIndices(), 4);
+        int[] expected = {0, 2, 4, 5, 1, 3, 7, 6, 8, 9};
+        for (int i = 0; i < expected.length; ++i) {
+            assertSame(items.get(expected[i]), list.getInnerComponent(i));
+        }
+        assertArrayEquals(new int[]{4, 5, 6}, list.getSelectedIndices());
+
+        assertEquals(1, events.size());
+        assertEvent(events.get(0), ListDataEvent.CONTENTS_CHANGED, 1, 7);
+        var e = (InteractiveComponentListEvent) events.get(0);
+        assertTrue(e.isPermutation());
+        assertArrayEquals(new int[]{2, 4, 5, 1, 3, 7, 6}, e.getPermutation());
+        assertEquals(6, e.getNewIndex(7));
+        assertEquals(9, e.getNewIndex(9));
+
+        assertThrows(IndexOutOfBoundsException.class, () -> list.moveRows(new int[]{0, 1}, 9));
+        assertThrows(IllegalArgumentException.class, () -> list.moveRows(new int[]{2, 2}, 0));
+    }
+
+    @Test
+    public void testDropMovesSelectedBlock() {
+        List<Component> items = buttons(10);
+        list.addAll(items);
+        list.enableSelection(true);
+        list.setSize(list.getPreferredSize());
+        list.doLayout();
+        list.getSelectionModel().addSelectionInterval(6, 8);
+        events.clear();
+
+        // drag row 7 by its handle and drop it above row 1.
+        var handle = ((InteractiveComponentListMiddle) list.getComponent(7)).getHandle();
+        handle.dispatchEvent(new MouseEvent(handle, MouseEvent.MOUSE_PRESSED, 0, 0, 1, 1, 1, false, MouseEvent.BUTTON1));
+        list.moveDroppableHere(list.getComponent(1).getY());
+
+        assertSame(items.get(6), list.getInnerComponent(1));
+        assertSame(items.get(8), list.getInnerComponent(3));
+        assertSame(items.get(1), list.getInnerComponent(4));
+        assertArrayEquals(new int[]{1, 2, 3}, list.getSelectedIndices());
+        assertEquals(1, events.size());
+        assertEvent(events.get(0), ListDataEvent.CONTENTS_CHANGED, 1, 8);
+        assertTrue(((InteractiveComponentListEvent) events.get(0)).isPermutation());
+    }
+
+    @Test
+    public void testAddingBreaksPermutation() {
+        list.addAll(buttons(10));
+        events.clear();
+        list.beginUpdate();
+        list.moveRow(0, 3);
+        list.add(new JButton("new"));
+        list.endUpdate();
+        assertFalse(((InteractiveComponentListEvent) events.get(0)).isPermutation());
+    }
+
+    @Test
+    public void testMovesInBatchCoalesce() {
+        List<Component> items = buttons(10);
+        list.addAll(items);
+        events.clear();
+
+        list.moveRow(2, 6);
+        var single = (InteractiveComponentListEvent) events.get(0);
+        assertEquals(2, single.getMoveFrom());
+        assertEquals(6, single.getMoveTo());
+
+        list.beginUpdate();
+        list.moveRow(6, 2);
+        list.moveRow(0, 9);
+        list.moveRow(9, 0);
+        list.endUpdate();
+        assertEquals(2, events.size());
+        var e = (InteractiveComponentListEvent) events.get(1);
+        assertEquals(6, e.getOldIndex(2));
+        assertEquals(2, e.getNewIndex(6));
+        assertEquals(0, e.getNewIndex(0));
+        assertEquals(6, e.getMoveFrom());
+        assertEquals(2, e.getMoveTo());
+    }
+
+    @Test
+    public void testMovingBackIsNoChange() {
+        list.addAll(buttons(10));
+        list.moveRow(3, 5);
+        list.moveRow(5, 3);
+        assertTrue(list.undo());
+        events.clear();
+
+        list.beginUpdate();
+        list.moveRow(2, 7);
+        list.moveRows(new int[]{0, 1}, 8);
+        list.moveRows(new int[]{8, 9}, 0);
+        list.moveRow(7, 2);
+        list.endUpdate();
+        assertTrue(events.isEmpty());
+        assertTrue(list.canRedo(), "Nothing moved, so nothing was recorded.");
+    }
+
+    @Test
+    public void testEventExecutor() {
+        List<Runnable> queued = new ArrayList<>();
+        list.setEventExecutor(queued::add);
+        list.addAll(buttons(3));
+        list.moveRow(0, 2);
+        assertTrue(events.isEmpty(), "Events wait for the executor.");
+        assertEquals(2, queued.size());
+
+        queued.forEach(Runnable::run);
+        assertEquals(2, events.size());
+        assertEvent(events.get(0), ListDataEvent.INTERVAL_ADDED, 0, 2);
+        assertEquals(0, ((InteractiveComponentListEvent) events.get(1)).getMoveFrom());
+    }
+
+    @Test
+    public void testIndexOfFollowsChanges() {
+        List<Component> items = buttons(500);
+        list.addAll(items);
+        Random random = new Random(1);
+        for (int step = 0; step < 300; ++step) {
+            int n = list.getComponentCount();
+            switch (random.nextInt(3)) {
+                case 0 -> list.moveRow(random.nextInt(n), random.nextInt(n));
+                case 1 -> list.remove(items.get(random.nextInt(items.size())));
+                default -> list.add(new JButton("new"), random.nextInt(n + 1));
+            }
+            Component probe = list.getComponent(random.nextInt(list.getComponentCount()));
+            int expected = list.getComponentZOrder(probe);
+            assertEquals(expected, list.indexOf(probe));
+            assertEquals(expected, list.indexOf(((InteractiveComponentListMiddle) probe).getInnerComponent()));
+        }
+        for (int i = 0; i < list.getComponentCount(); ++i) {
+            assertEquals(i, list.indexOf(list.getInnerComponent(i)));
+        }
+
+        Component removed = list.getInnerComponent(0);
+        list.remove(removed);
+        assertFalse(list.contains(removed));
+        assertEquals(-1, list.indexOf(removed));
+        assertTrue(list.contains(list.getComponent(0)));
+
+        // reordered behind the list's back.
+        Component first = list.getComponent(0);
+        list.setComponentZOrder(first, 5);
+        assertEquals(5, list.indexOf(first));
+        assertEquals(5, list.indexOf(((InteractiveComponentListMiddle) first).getInnerComponent()));
+    }
+
+    @Test
+    public void testSortIsOnePermutation() {
+        List<Component> items = buttons(200);
+        List<Component> shuffled = new ArrayList<>(items);
+        Collections.shuffle(shuffled, new Random(2));
+        list.addAll(shuffled);
+        list.enableSelection(true);
+        list.getSelectionModel().setSelected(list.indexOf(items.get(7)), true);
+        events.clear();
+
+        list.sort(Comparator.comparing(items::indexOf));
+        for (int i = 0; i < items.size(); ++i) {
+            assertSame(items.get(i), list.getInnerComponent(i));
+            assertEquals(i, list.indexOf(items.get(i)));
+        }
+        assertArrayEquals(new int[]{7}, list.getSelectedIndices());
+        assertEquals(1, events.size());
+        assertTrue(((InteractiveComponentListEvent) events.get(0)).isPermutation());
+
+        events.clear();
+        list.sort(Comparator.comparing(items::indexOf));
+        assertTrue(events.isEmpty(), "A sorted list does not change.");
+
+        assertThrows(IllegalArgumentException.class, () -> list.reorder(new int[]{0, 1}));
+        int[] twice = new int[200];
+        assertThrows(IllegalArgumentException.class, () -> list.reorder(twice));
+    }
+
+    @Test
+    public void testOnlyRowsOutOfOrderMove() {
+        boolean[] stays = InteractiveComponentList.longestIncreasingRun(new int[]{0, 1, 5, 2, 3, 4, 6});
+        assertArrayEquals(new boolean[]{true, true, true, true, true, false, true}, stays);
+        stays = InteractiveComponentList.longestIncreasingRun(new int[]{3, 2, 1, 0});
+        int kept = 0;
+        for (boolean b : stays) if (b) kept++;
+        assertEquals(1, kept);
+    }
+
+    @Test
+    public void testUndoRedoReorders() {
+        List<Component> items = buttons(50);
+        list.addAll(items);
+        assertFalse(list.canUndo());
+
+        list.moveRow(3, 40);
+        list.moveRows(new int[]{0, 10, 20}, 30);
+        list.sort(Comparator.comparing(c -> -items.indexOf(c)));
+        events.clear();
+
+        assertTrue(list.undo());
+        assertEquals(1, events.size());
+        assertTrue(((InteractiveComponentListEvent) events.get(0)).isPermutation());
+        assertTrue(list.undo());
+        assertTrue(list.undo());
+        assertFalse(list.undo());
+        for (int i = 0; i < items.size(); ++i) assertSame(items.get(i), list.getInnerComponent(i));
+
+        assertTrue(list.redo());
+        assertSame(items.get(3), list.getInnerComponent(40));
+        assertTrue(list.canRedo());
+        list.moveRow(0, 1);
+        assertFalse(list.canRedo(), "A new reorder forgets what could be redone.");
+
+        list.add(new JButton("new"));
+        assertFalse(list.canUndo(), "Adding a row forgets every reorder.");
+    }
+
+    @Test
+    public void testTransferToAnotherList() {
+        List<Component> items = buttons(10);
+        list.addAll(items);
+        list.enableSelection(true);
+        list.getSelectionModel().setSelected(3, true);
+        InteractiveComponentList other = new InteractiveComponentList();
+        List<ListDataEvent> otherEvents = new ArrayList<>();
+        other.addListener(new ListDataListener() {
+            @Override
+            public void intervalAdded(ListDataEvent e) {
+                otherEvents.add(e);
+            }
+
+            @Override
+            public void intervalRemoved(ListDataEvent e) {
+                otherEvents.add(e);
+            }
+
+            @Override
+            public void contentsChanged(ListDataEvent e) {
+                otherEvents.add(e);
+            }
+        });
+        other.addAll(buttons(3));
+        other.enableSelection(true);
+        otherEvents.clear();
+        events.clear();
+        Component row = list.getComponent(3);
+
+        list.transferTo(other, new int[]{4, 2, 3}, 1);
+        assertEquals(7, list.getComponentCount());
+        assertEquals(6, other.getComponentCount());
+        assertSame(row, other.getComponent(2), "The row moves with its wrapper.");
+        assertSame(items.get(2), other.getInnerComponent(1));
+        assertEquals(2, other.indexOf(items.get(3)));
+        assertFalse(list.contains(items.get(3)));
+        assertArrayEquals(new int[]{2}, other.getSelectedIndices());
+        assertEquals(0, list.getSelectionModel().getSelectedCount());
+        assertEquals(1, events.size());
+        assertEvent(events.get(0), ListDataEvent.INTERVAL_REMOVED, 2, 4);
+        assertEquals(1, otherEvents.size());
+        assertEvent(otherEvents.get(0), ListDataEvent.INTERVAL_ADDED, 1, 3);
+
+        // dragged by its handle in the list it is in now, and dropped back on the first list.
+        var handle = ((InteractiveComponentListMiddle) row).getHandle();
+        handle.dispatchEvent(new MouseEvent(handle, MouseEvent.MOUSE_PRESSED, 0, 0, 1, 1, 1, false, MouseEvent.BUTTON1));
+        list.setSize(list.getPreferredSize());
+        list.doLayout();
+        list.dropRow(row, 0);
+        assertSame(items.get(3), list.getInnerComponent(0));
+        assertEquals(5, other.getComponentCount());
+
+        assertThrows(IllegalArgumentException.class,
+                () -> list.transferTo(new InteractiveComponentList(InteractiveComponentList.RowStyle.PAINTED), new int[]{0}, 0));
+    }
+
+    @Test
+    public void testTransferDoesNotDetachRows() {
+        InteractiveComponentList source = new InteractiveComponentList(InteractiveComponentList.RowStyle.PAINTED) {
+            @Override
+            public void remove(int index) {
+                fail("Rows should move to the other list without being removed from the hierarchy.");
+            }
+        };
+        List<Component> items = buttons(6);
+        source.addAll(items);
+        source.enableSelection(true);
+        source.getSelectionModel().setSelected(4, true);
+        List<ListDataEvent> sourceEvents = new ArrayList<>();
+        source.addListener(new ListDataListener() {
+            @Override
+            public void intervalAdded(ListDataEvent e) {
+                sourceEvents.add(e);
+            }
+
+            @Override
+            public void intervalRemoved(ListDataEvent e) {
+                sourceEvents.add(e);
+            }
+
+            @Override
+            public void contentsChanged(ListDataEvent e) {
+                sourceEvents.add(e);
+            }
+        });
+        InteractiveComponentList target = new InteractiveComponentList(InteractiveComponentList.RowStyle.PAINTED);
+        target.enableSelection(true);
+        target.addAll(buttons(2));
+
+        source.transferTo(target, new int[]{4, 1}, 1);
+        assertSame(items.get(1), target.getComponent(1));
+        assertSame(items.get(4), target.getComponent(2));
+        assertSame(target, items.get(4).getParent());
+        assertEquals(2, target.indexOf(items.get(4)));
+        assertEquals(-1, source.indexOf(items.get(4)));
+        assertArrayEquals(new int[]{2}, target.getSelectedIndices(), "A painted row keeps its selection.");
+        assertEquals(0, source.getSelectionModel().getSelectedCount());
+        assertEquals(1, sourceEvents.size());
+        assertEvent(sourceEvents.get(0), ListDataEvent.CONTENTS_CHANGED, 1, 5);
+
+        // a listener of the source that throws leaves neither list in a batch.
+        source.addListener(new ListDataListener() {
+            @Override
+            public void intervalAdded(ListDataEvent e) {}
+
+            @Override
+            public void intervalRemoved(ListDataEvent e) {
+                throw new IllegalStateException("listener");
+            }
+
+            @Override
+            public void contentsChanged(ListDataEvent e) {}
+        });
+        assertThrows(IllegalStateException.class, () -> source.transferTo(target, new int[]{0}, 0));
+        assertFalse(source.isUpdating());
+        assertFalse(target.isUpdating());
+        assertSame(items.get(0), target.getComponent(0));
+    }
+}
@@ -0,0 +1,235 @@
+package com.marginallyclever.interactivecomponentlist;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseEvent;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InteractiveComponentListLayoutTest {
+    private InteractiveComponentList list;
+
+    @BeforeEach
+    void setUp() {
+        list = new InteractiveComponentList();
+        for (int i = 0; i < 100; ++i) list.add(new JButton("Item " + i));
+        list.setSize(list.getPreferredSize());
+        list.doLayout();
+    }
+
+    private void assertStacked() {
+        int y = list.getInsets().top;
+        for (Component c : list.getComponents()) {
+            assertEquals(y, c.getY());
+            assertEquals(list.getWidth(), c.getWidth());
+            y += c.getHeight();
+        }
+        assertEquals(y, list.getPreferredSize().height);
+    }
+
+    @Test
+    public void testRowsAreStacked() {
+        assertStacked();
+        Component row = list.getComponent(50);
+        assertEquals(50, list.getRowIndexAt(row.getY() + 1));
+        assertEquals(51, list.getDropIndex(new Point(0, row.getY() + row.getHeight() - 1)));
+    }
+
+    @Test
+    public void testChangesAreLaidOut() {
+        list.remove(10);
+        list.add(new JButton("<html>two<br>lines</html>"), 20);
+        list.doLayout();
+        assertStacked();
+        assertTrue(list.getComponent(20).getHeight() > list.getComponent(19).getHeight());
+
+        list.getComponent(30).setVisible(false);
+        list.doLayout();
+        assertStacked();
+        assertEquals(0, list.getComponent(30).getHeight());
+    }
+
+    @Test
+    public void testSeveralChangesBeforeOneLayout() {
+        for (InteractiveComponentList.RowStyle style : InteractiveComponentList.RowStyle.values()) {
+            InteractiveComponentList list = new InteractiveComponentList(style);
+            list.setFixedRowHeight(20);
+            for (int i = 0; i < 10; ++i) list.add(new JButton("Item " + i));
+            list.setSize(100, 200);
+            list.doLayout();
+            Rectangle first = list.getComponent(0).getBounds();
+
+            list.moveRow(0, 1);
+            list.remove(5);
+            list.doLayout();
+            assertRowBounds(list, first, style);
+
+            list.moveRow(2, 0);
+            list.add(new JButton("New"), 7);
+            list.remove(8);
+            list.remove(3);
+            list.moveRow(6, 5);
+            list.doLayout();
+            assertRowBounds(list, first, style);
+        }
+    }
+
+    private static void assertRowBounds(InteractiveComponentList list, Rectangle first,
+                                        InteractiveComponentList.RowStyle style) {
+        for (int i = 0; i < list.getComponentCount(); ++i) {
+            assertEquals(new Rectangle(first.x, first.y + i * 20, first.width, 20), list.getComponent(i).getBounds(),
+                    style + " row " + i);
+        }
+    }
+
+    @Test
+    public void testFixedRowHeight() {
+        list.setFixedRowHeight(25);
+        list.doLayout();
+        assertStacked();
+        for (Component c : list.getComponents()) assertEquals(25, c.getHeight());
+        assertEquals(100 * 25, list.getPreferredSize().height);
+    }
+
+    @Test
+    public void testOnlyChangedRowsAreMeasured() {
+        InteractiveComponentListLayout layout = (InteractiveComponentListLayout) list.getLayout();
+        list.doLayout();
+        assertEquals(0, layout.getLastMeasuredCount());
+
+        list.moveRow(10, 60);
+        list.remove(5);
+        list.doLayout();
+        assertEquals(0, layout.getLastMeasuredCount());
+
+        // what a change inside the row does on its way up to the list.
+        JButton button = (JButton) list.getInnerComponent(50);
+        button.setText("A much longer label than any other row has");
+        list.getComponent(50).invalidate();
+        list.getComponent(70).setVisible(false);
+        list.add(new JButton("Item 100"));
+        list.doLayout();
+        assertEquals(3, layout.getLastMeasuredCount());
+        list.getPreferredSize();
+        assertEquals(0, layout.getLastMeasuredCount(), "Not measured again to find the preferred size.");
+        // without a display the rows are never validated, which must not keep them in line to be measured.
+        list.invalidate();
+        list.doLayout();
+        assertEquals(0, layout.getLastMeasuredCount());
+        assertStacked();
+        assertEquals(0, list.getComponent(70).getHeight());
+        assertEquals(list.getComponent(50).getPreferredSize().width, list.getPreferredSize().width);
+    }
+
+    @Test
+    public void testOnlyChangedPaintedRowsAreMeasured() {
+        InteractiveComponentList list = new InteractiveComponentList(InteractiveComponentList.RowStyle.PAINTED);
+        for (int i = 0; i < 100; ++i) list.add(new JLabel("Item " + i));
+        list.setSize(list.getPreferredSize());
+        list.doLayout();
+        InteractiveComponentListLayout layout = (InteractiveComponentListLayout) list.getLayout();
+
+        // painted rows can't report that they were invalidated, and the list does not go looking.
+        list.invalidate();
+        list.doLayout();
+        assertEquals(0, layout.getLastMeasuredCount());
+
+        JLabel label = (JLabel) list.getComponent(50);
+        label.setText("<html>two<br>lines</html>");
+        list.doLayout();
+        assertEquals(1, layout.getLastMeasuredCount());
+        assertTrue(label.getHeight() > list.getComponent(49).getHeight());
+
+        JPanel panel = new JPanel(new BorderLayout());
+        JLabel inner = new JLabel("Inside");
+        panel.add(inner);
+        list.add(panel, 10);
+        list.doLayout();
+        assertEquals(1, layout.getLastMeasuredCount());
+        inner.setText("<html>two<br>lines</html>");
+        list.remeasure(panel);
+        list.doLayout();
+        assertEquals(1, layout.getLastMeasuredCount());
+        assertEquals(panel.getPreferredSize().height, panel.getHeight());
+
+        list.remove(label);
+        label.setText("Removed");
+        list.doLayout();
+        assertEquals(0, layout.getLastMeasuredCount());
+    }
+
+    @Test
+    public void testFilterCollapsesRows() {
+        list.setFilter(c -> ((JButton) c).getText().endsWith("0"));
+        list.doLayout();
+        assertStacked();
+        assertEquals(10, list.getShownRowCount());
+        assertEquals(0, list.getComponent(11).getHeight());
+        assertEquals(3, list.convertRowIndexToView(30));
+        assertEquals(-1, list.convertRowIndexToView(31));
+        assertEquals(40, list.convertRowIndexToModel(4));
+
+        // dropping in the upper half of row 20 lands right after the hidden rows above it.
+        Component row = list.getComponent(20);
+        assertEquals(row.getY(), list.getComponent(11).getY());
+        assertEquals(11, list.getDropIndex(new Point(0, row.getY() - 1)));
+        assertEquals(20, list.getDropIndex(new Point(0, row.getY() + 1)));
+
+        JButton button = (JButton) list.getInnerComponent(25);
+        button.setText("Item 250");
+        assertTrue(list.refilter(button));
+        list.add(new JButton("Item 101"));
+        list.doLayout();
+        assertStacked();
+        assertEquals(11, list.getShownRowCount());
+        assertTrue(list.getComponent(25).getHeight() > 0);
+        assertEquals(0, list.getComponent(100).getHeight());
+
+        list.setFilter(null);
+        list.doLayout();
+        assertStacked();
+        assertEquals(101, list.getShownRowCount());
+        assertTrue(list.getComponent(11).getHeight() > 0);
+    }
+
+    @Test
+    public void testFilteredRowsCanNotTakeFocus() {
+        list.getComponent(2).setVisible(false);
+        list.setFilter(c -> ((JButton) c).getText().endsWith("0"));
+        assertFalse(list.getComponent(11).isVisible(), "A hidden row is out of the focus traversal.");
+        assertTrue(list.getComponent(10).isVisible());
+
+        Component removed = list.getComponent(12);
+        list.remove(12);
+        assertTrue(removed.isVisible(), "A row that leaves the list is visible again.");
+
+        list.setFilter(null);
+        assertTrue(list.getComponent(11).isVisible());
+        assertFalse(list.getComponent(2).isVisible(), "A row the application hid stays hidden.");
+    }
+
+    @Test
+    public void testDragSkipsHiddenSelectedRows() {
+        list.enableSelection(true);
+        list.getSelectionModel().addSelectionInterval(0, 20);
+        list.setFilter(c -> ((JButton) c).getText().endsWith("0"));
+        list.doLayout();
+
+        Component dragged = list.getInnerComponent(10);
+        var handle = ((InteractiveComponentListMiddle) list.getComponent(10)).getHandle();
+        handle.dispatchEvent(new MouseEvent(handle, MouseEvent.MOUSE_PRESSED, 0, 0, 1, 1, 1, false, MouseEvent.BUTTON1));
+        list.moveDroppableHere(list.getComponent(50).getY());
+
+        // rows 0, 10 and 20 move; the hidden rows between them stay.
+        assertSame(dragged, list.getInnerComponent(48));
+        assertEquals(List.of("Item 0", "Item 10", "Item 20"), List.of(
+                ((JButton) list.getInnerComponent(47)).getText(),
+                ((JButton) list.getInnerComponent(48)).getText(),
+                ((JButton) list.getInnerComponent(49)).getText()));
+        assertEquals("Item 1", ((JButton) list.getInnerComponent(0)).getText());
+    }
+}
@@ -0,0 +1,117 @@
+package com.marginallyclever.interactivecomponentlist;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InteractiveComponentListMetricsTest {
+    private InteractiveComponentList list;
+
+    @BeforeEach
+    void setUp() {
+        list = new InteractiveComponentList(InteractiveComponentList.RowStyle.PAINTED);
+        for (int i = 0; i < 100; ++i) list.add(new JLabel("Item " + i));
+        list.setSize(200, list.getPreferredSize().height);
+        list.doLayout();
+    }
+
+    private void dragAndDrop() {
+        Component row = list.getComponent(10);
+        list.dispatchEvent(new MouseEvent(list, MouseEvent.MOUSE_PRESSED, 0, 0, 1, row.getY() + 1, 1, false, MouseEvent.BUTTON1));
+        list.moveDroppableHere(list.getComponent(50).getY());
+        list.doLayout();
+        BufferedImage image = new BufferedImage(200, 100, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        list.paint(g);
+        g.dispose();
+    }
+
+    @Test
+    public void testRecorder() {
+        var recorder = new InteractiveComponentListMetricsRecorder();
+        list.setMetrics(recorder);
+        dragAndDrop();
+
+        assertEquals(1, recorder.getCount(InteractiveComponentListMetrics.Counter.DRAGS_STARTED));
+        assertEquals(1, recorder.getCount(InteractiveComponentListMetrics.Counter.DROPS));
+        assertEquals(1, recorder.getCount(InteractiveComponentListMetrics.Counter.ROWS_MOVED));
+        assertEquals(1, recorder.getCount(InteractiveComponentListMetrics.Counter.COMMITS));
+        assertEquals(1, recorder.getCount(InteractiveComponentListMetrics.Counter.LAYOUTS));
+        assertEquals(40, recorder.getCount(InteractiveComponentListMetrics.Counter.ROWS_PLACED), "Only the moved rows are placed.");
+        assertEquals(1, recorder.getCount(InteractiveComponentListMetrics.Counter.PAINTS));
+        for (var latency : InteractiveComponentListMetrics.Latency.values()) {
+            var h = recorder.getHistogram(latency);
+            assertEquals(1, h.getCount(), latency.name());
+            assertTrue(h.getPercentile(50) <= h.getMax());
+        }
+
+        recorder.reset();
+        assertEquals(0, recorder.getCount(InteractiveComponentListMetrics.Counter.DROPS));
+        assertEquals(0, recorder.getHistogram(InteractiveComponentListMetrics.Latency.DROP).getCount());
+    }
+
+    @Test
+    public void testHistogram() {
+        var h = new InteractiveComponentListMetricsRecorder.Histogram();
+        for (int i = 1; i <= 100; ++i) h.record(i * 1000L);
+        assertEquals(100, h.getCount());
+        assertEquals(50500, h.getMean());
+        assertEquals(100000, h.getMax());
+        long p50 = h.getPercentile(50);
+        assertTrue(p50 >= 50000 && p50 <= 50000 * 33 / 32, "p50 " + p50);
+        long p99 = h.getPercentile(99);
+        assertTrue(p99 >= 99000 && p99 <= 99000 * 33 / 32, "p99 " + p99);
+        assertEquals(100000, h.getPercentile(100));
+    }
+
+    @Test
+    public void testHistogramBuckets() {
+        int last = -1;
+        for (long nanos : new long[]{0, 1, 63, 64, 65, 66, 127, 128, 1000, 1_000_000, 1L << 40, Long.MAX_VALUE}) {
+            int bucket = InteractiveComponentListMetricsRecorder.Histogram.bucketOf(nanos);
+            assertTrue(bucket >= last, "buckets follow the times");
+            last = bucket;
+            long upper = InteractiveComponentListMetricsRecorder.Histogram.upperBoundOf(bucket);
+            assertTrue(nanos <= upper && upper - nanos <= nanos / 32, nanos + " in bucket up to " + upper);
+            assertEquals(bucket, InteractiveComponentListMetricsRecorder.Histogram.bucketOf(upper));
+        }
+    }
+
+    @Test
+    public void testFlightRecorderEvents() throws Exception {
+        Path file = Files.createTempFile("list", ".jfr");
+        try (Recording recording = new Recording()) {
+            for (String name : List.of("DragStart", "Drop", "Commit", "Layout", "Paint")) {
+                recording.enable("com.marginallyclever.interactivecomponentlist." + name);
+            }
+            recording.start();
+            dragAndDrop();
+            recording.stop();
+            recording.dump(file);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+
+        RecordedEvent drop = events.stream()
+                .filter(e -> e.getEventType().getName().endsWith(".Drop"))
+                .findFirst().orElseThrow();
+        assertEquals(10, drop.getInt("from"));
+        assertEquals(49, drop.getInt("to"));
+        assertEquals(1, drop.getInt("rowsMoved"));
+        for (String name : List.of("DragStart", "Commit", "Layout", "Paint")) {
+            assertTrue(events.stream().anyMatch(e -> e.getEventType().getName().endsWith("." + name)), name);
+        }
+    }
+}
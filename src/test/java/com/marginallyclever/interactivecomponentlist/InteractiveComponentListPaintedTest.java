@@ -0,0 +1,68 @@
+package com.marginallyclever.interactivecomponentlist;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.InputEvent;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InteractiveComponentListPaintedTest {
+    private InteractiveComponentList list;
+    private final List<JButton> buttons = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        list = new InteractiveComponentList(InteractiveComponentList.RowStyle.PAINTED);
+        for (int i = 0; i < 100; ++i) buttons.add(new JButton("Item " + i));
+        list.addAll(buttons);
+        list.enableSelection(true);
+        list.setSize(list.getPreferredSize());
+        list.doLayout();
+    }
+
+    private void press(int x, int y, int modifiers) {
+        list.dispatchEvent(new MouseEvent(list, MouseEvent.MOUSE_PRESSED, 0, modifiers, x, y, 1, false, MouseEvent.BUTTON1));
+    }
+
+    @Test
+    public void testRowsAreNotWrapped() {
+        assertSame(buttons.get(42), list.getComponent(42));
+        assertSame(buttons.get(42), list.getInnerComponent(42));
+        for (Component c : list.getComponents()) {
+            assertTrue(c.getX() > 0, "The handle gutter is left of every row.");
+            assertTrue(c.getX() + c.getWidth() < list.getWidth(), "The checkbox gutter is right of every row.");
+        }
+
+        list.remove(buttons.get(0));
+        list.moveRow(0, 5);
+        assertSame(buttons.get(1), list.getComponent(5));
+    }
+
+    @Test
+    public void testPaintedCheckboxSelects() {
+        Component row = list.getComponent(10);
+        int checkX = list.getWidth() - 2;
+        press(checkX, row.getY() + 1, 0);
+        assertArrayEquals(new int[]{10}, list.getSelectedIndices());
+        press(checkX, list.getComponent(12).getY() + 1, InputEvent.SHIFT_DOWN_MASK);
+        assertArrayEquals(new int[]{10, 11, 12}, list.getSelectedIndices());
+        press(checkX, row.getY() + 1, 0);
+        assertArrayEquals(new int[]{11, 12}, list.getSelectedIndices());
+
+        // pressing the row itself or the handle does not change the selection.
+        press(row.getX() + 1, row.getY() + 1, 0);
+        assertArrayEquals(new int[]{11, 12}, list.getSelectedIndices());
+
+        BufferedImage image = new BufferedImage(list.getWidth(), 200, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        list.paint(g);
+        g.dispose();
+    }
+}
@@ -0,0 +1,97 @@
+package com.marginallyclever.interactivecomponentlist;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import javax.swing.event.ListSelectionEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InteractiveComponentListSelectionModelTest {
+    private InteractiveComponentListSelectionModel model;
+    private final List<ListSelectionEvent> events = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        model = new InteractiveComponentListSelectionModel();
+        model.insert(0, 200);
+        model.addListSelectionListener(events::add);
+    }
+
+    @Test
+    public void testRanges() {
+        model.setSelected(3, true);
+        model.extendSelection(70);
+        assertEquals(68, model.getSelectedCount());
+        assertEquals(3, model.getMinSelectionIndex());
+        assertEquals(70, model.getMaxSelectionIndex());
+        assertEquals(2, events.size());
+
+        model.setSelectionInterval(10, 12);
+        assertArrayEquals(new int[]{10, 11, 12}, model.getSelectedIndices());
+        model.clearSelection();
+        assertTrue(model.isSelectionEmpty());
+    }
+
+    @Test
+    public void testSelectionFollowsRows() {
+        model.setSelected(5, true);
+        model.setSelected(100, true);
+        events.clear();
+
+        model.insert(0, 70);
+        assertArrayEquals(new int[]{75, 170}, model.getSelectedIndices());
+        model.remove(10, 3);
+        assertArrayEquals(new int[]{72, 167}, model.getSelectedIndices());
+        model.move(72, 0);
+        assertArrayEquals(new int[]{0, 167}, model.getSelectedIndices());
+        assertTrue(events.isEmpty(), "Rows that keep their selection do not fire events.");
+
+        model.remove(167, 1);
+        assertArrayEquals(new int[]{0}, model.getSelectedIndices());
+        assertEquals(1, events.size());
+    }
+
+    @Test
+    public void testIndexesPastTheLastRow() {
+        assertEquals(200, model.getRowCount());
+        assertThrows(IndexOutOfBoundsException.class, () -> model.addSelectionInterval(150, 200));
+        assertThrows(IndexOutOfBoundsException.class, () -> model.setSelectionInterval(-1, 3));
+        assertThrows(IndexOutOfBoundsException.class, () -> model.setSelected(Integer.MAX_VALUE, true));
+        assertTrue(model.isSelectionEmpty());
+        assertTrue(events.isEmpty());
+
+        model.selectAll(Integer.MAX_VALUE);
+        assertEquals(200, model.getSelectedCount());
+        model.removeSelectionInterval(100, 1000);
+        assertEquals(99, model.getMaxSelectionIndex());
+
+        model.remove(50, 100);
+        assertEquals(100, model.getRowCount());
+        assertEquals(50, model.getSelectedCount());
+        assertThrows(IndexOutOfBoundsException.class, () -> model.extendSelection(100));
+    }
+
+    @Test
+    public void testListKeepsSelectionAcrossMoves() {
+        InteractiveComponentList list = new InteractiveComponentList();
+        List<JButton> buttons = new ArrayList<>();
+        for (int i = 0; i < 10; ++i) buttons.add(new JButton("Item " + i));
+        list.addAll(buttons);
+        list.enableSelection(true);
+
+        list.getSelectionModel().addSelectionInterval(2, 3);
+        assertTrue(((InteractiveComponentListMiddle) list.getComponent(2)).getCheck().isSelected());
+        list.moveRow(3, 9);
+        list.remove(0);
+        assertEquals(List.of(buttons.get(2), buttons.get(3)), list.getSelectedComponents());
+        assertArrayEquals(new int[]{1, 8}, list.getSelectedIndices());
+
+        list.enableSelection(false);
+        assertTrue(list.getSelectedComponents().isEmpty());
+        assertFalse(((InteractiveComponentListMiddle) list.getComponent(1)).getCheck().isSelected());
+    }
+}
@@ -0,0 +1,190 @@
+package com.marginallyclever.interactivecomponentlist;
+
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LazyRowLoaderTest {
+    private static void waitUntilLoaded(InteractiveComponentList list) throws Exception {
+        long deadline = System.currentTimeMillis() + 10000;
+        int[] loading = {1};
+        while (loading[0] > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+            SwingUtilities.invokeAndWait(() -> loading[0] = list.getLoadingCount());
+        }
+        assertEquals(0, loading[0]);
+    }
+
+    /**
+     * Wait until the loader has handed its only component to the list.
+     */
+    private static void waitUntilBuilt(InteractiveComponentList list) throws Exception {
+        long deadline = System.currentTimeMillis() + 10000;
+        int[] pending = {1};
+        while (pending[0] > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+            SwingUtilities.invokeAndWait(() -> pending[0] = list.getLoader().getPendingCount());
+        }
+        assertEquals(0, pending[0]);
+    }
+
+    @Test
+    public void testPlaceholdersCanBeMovedAndSelected() throws Exception {
+        InteractiveComponentList list = new InteractiveComponentList();
+        CountDownLatch go = new CountDownLatch(1);
+        List<JLabel> labels = new ArrayList<>();
+        List<ListDataEvent> changes = Collections.synchronizedList(new ArrayList<>());
+        Component[] removed = new Component[1];
+        SwingUtilities.invokeAndWait(() -> {
+            list.enableSelection(true);
+            for (int i = 0; i < 10; ++i) {
+                JLabel label = new JLabel("Item " + i);
+                labels.add(label);
+                list.add(() -> {
+                    try {
+                        go.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return label;
+                }, 20);
+            }
+            list.addListener(new ListDataListener() {
+                @Override
+                public void intervalAdded(ListDataEvent e) {}
+
+                @Override
+                public void intervalRemoved(ListDataEvent e) {}
+
+                @Override
+                public void contentsChanged(ListDataEvent e) {
+                    if (!((InteractiveComponentListEvent) e).isPermutation()) changes.add(e);
+                }
+            });
+            assertFalse(list.isRealized(0));
+            list.moveRow(0, 9);
+            list.getSelectionModel().setSelected(9, true);
+            removed[0] = list.getInnerComponent(1);
+            list.remove(removed[0]);
+        });
+        go.countDown();
+        waitUntilLoaded(list);
+
+        SwingUtilities.invokeAndWait(() -> {
+            assertEquals(9, list.getComponentCount());
+            for (int i = 0; i < 9; ++i) assertTrue(list.isRealized(i));
+            assertSame(labels.get(0), list.getInnerComponent(8));
+            assertSame(labels.get(1), list.getInnerComponent(0));
+            assertEquals(List.of(labels.get(0)), list.getSelectedComponents());
+            assertEquals(8, list.indexOf(labels.get(0)));
+            assertEquals(-1, list.indexOf(removed[0]));
+            assertFalse(list.contains(labels.get(2)), "The removed row's component was thrown away.");
+            assertEquals(9, changes.size(), "One event for each row that was replaced.");
+        });
+    }
+
+    @Test
+    public void testRowsNearTheViewportLoadFirst() throws Exception {
+        InteractiveComponentList list = new InteractiveComponentList(InteractiveComponentList.RowStyle.PAINTED);
+        List<Integer> order = Collections.synchronizedList(new ArrayList<>());
+        SwingUtilities.invokeAndWait(() -> {
+            list.getLoader().setMaxInFlight(1);
+            for (int i = 0; i < 100; ++i) {
+                int index = i;
+                list.add(() -> {
+                    order.add(index);
+                    return new JLabel("Item " + index);
+                }, 20);
+            }
+            JViewport viewport = new JViewport();
+            viewport.setView(list);
+            viewport.setSize(200, 100);
+            list.setSize(list.getPreferredSize());
+            list.doLayout();
+            viewport.setViewPosition(new Point(0, 1000));
+        });
+        waitUntilLoaded(list);
+
+        assertEquals(100, order.size());
+        for (int i = 0; i < 5; ++i) {
+            assertTrue(order.get(i) >= 50 && order.get(i) < 55, "Visible rows first, not " + order);
+        }
+    }
+
+    @Test
+    public void testComponentsBuiltDuringABatchGoInWhenItEnds() throws Exception {
+        InteractiveComponentList list = new InteractiveComponentList();
+        CountDownLatch go = new CountDownLatch(1);
+        JLabel label = new JLabel("Item");
+        Component[] placeholder = new Component[1];
+        SwingUtilities.invokeAndWait(() -> {
+            placeholder[0] = list.add(() -> {
+                try {
+                    go.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return label;
+            }, 20);
+            list.beginUpdate();
+        });
+        go.countDown();
+        waitUntilBuilt(list);
+
+        SwingUtilities.invokeAndWait(() -> {
+            assertFalse(list.isRealized(0), "Nothing is replaced while the batch is open.");
+            assertEquals(1, list.getLoadingCount());
+            list.add(new JLabel("Other"), 0);
+            list.endUpdate();
+            assertSame(label, list.getInnerComponent(1));
+            assertEquals(0, list.getLoadingCount());
+            assertEquals(-1, list.indexOf(placeholder[0]));
+        });
+    }
+
+    @Test
+    public void testBuildInFlightGoesWithItsRow() throws Exception {
+        InteractiveComponentList source = new InteractiveComponentList();
+        InteractiveComponentList target = new InteractiveComponentList();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch go = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+        JLabel label = new JLabel("Item");
+        SwingUtilities.invokeAndWait(() -> source.add(() -> {
+            calls.incrementAndGet();
+            started.countDown();
+            try {
+                go.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return label;
+        }, 20));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        SwingUtilities.invokeAndWait(() -> {
+            source.transferTo(target, new int[]{0}, 0);
+            assertEquals(0, source.getLoadingCount());
+            assertEquals(1, target.getLoadingCount());
+        });
+        go.countDown();
+        waitUntilLoaded(target);
+
+        SwingUtilities.invokeAndWait(() -> {
+            assertSame(label, target.getInnerComponent(0));
+            assertEquals(0, source.getComponentCount());
+        });
+        assertEquals(1, calls.get(), "The component is built once.");
+    }
+}
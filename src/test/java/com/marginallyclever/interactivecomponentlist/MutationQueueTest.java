@@ -0,0 +1,83 @@
+package com.marginallyclever.interactivecomponentlist;
+
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import javax.swing.event.ListDataEvent;
+import javax.swing.event.ListDataListener;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MutationQueueTest {
+    @Test
+    public void testBackgroundSubmitsAreBatched() throws Exception {
+        InteractiveComponentList list = new InteractiveComponentList(InteractiveComponentList.RowStyle.PAINTED);
+        AtomicInteger events = new AtomicInteger();
+        AtomicBoolean onEdt = new AtomicBoolean(true);
+        list.addListener(new ListDataListener() {
+            @Override
+            public void intervalAdded(ListDataEvent e) {
+                if (!SwingUtilities.isEventDispatchThread()) onEdt.set(false);
+                events.incrementAndGet();
+            }
+
+            @Override
+            public void intervalRemoved(ListDataEvent e) {
+                events.incrementAndGet();
+            }
+
+            @Override
+            public void contentsChanged(ListDataEvent e) {
+                events.incrementAndGet();
+            }
+        });
+
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < 4; ++t) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 2000; ++i) {
+                    while (!list.submitAdd(new JLabel("Item " + i))) Thread.onSpinWait();
+                }
+            });
+            producers.add(thread);
+            thread.start();
+        }
+        for (Thread thread : producers) thread.join();
+
+        long deadline = System.currentTimeMillis() + 10000;
+        while (list.getPendingSubmitCount() > 0 && System.currentTimeMillis() < deadline) Thread.sleep(5);
+        SwingUtilities.invokeAndWait(() -> {});
+
+        assertEquals(0, list.getPendingSubmitCount());
+        assertEquals(8000, list.getComponentCount());
+        assertTrue(onEdt.get(), "Changes are applied on the EDT.");
+        assertTrue(events.get() < 100, "8000 adds should arrive in a few batches, not " + events.get());
+    }
+
+    @Test
+    public void testBackpressureAndOrder() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            InteractiveComponentList list = new InteractiveComponentList();
+            list.setSubmitCapacity(4);
+            JLabel a = new JLabel("a");
+            JLabel b = new JLabel("b");
+            assertTrue(list.submitAdd(a));
+            assertTrue(list.submitAdd(b));
+            assertTrue(list.submitMove(b, 0));
+            assertTrue(list.submitRemove(new JLabel("not in the list")));
+            assertFalse(list.submitAdd(new JLabel("c")), "The queue is full.");
+            assertEquals(4, list.getPendingSubmitCount());
+            assertEquals(0, list.getComponentCount(), "Nothing is applied before the frame.");
+
+            list.flushSubmitted();
+            assertEquals(0, list.getPendingSubmitCount());
+            assertEquals(2, list.getComponentCount());
+            assertSame(b, list.getInnerComponent(0));
+            assertSame(a, list.getInnerComponent(1));
+        });
+    }
+}
@@ -0,0 +1,60 @@
+package com.marginallyclever.interactivecomponentlist;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReorderHistoryTest {
+    private ReorderHistory history;
+
+    @BeforeEach
+    void setUp() {
+        history = new ReorderHistory();
+    }
+
+    @Test
+    public void testEntriesAreRuns() {
+        // row 7 moved to 2, inside a permutation of 0..9.
+        history.record(0, new int[]{0, 1, 7, 2, 3, 4, 5, 6, 8, 9});
+        ReorderHistory.Entry entry = history.undo();
+        assertEquals(2, entry.index0);
+        assertEquals(6, entry.length);
+        assertEquals(2, entry.getRunCount());
+        assertArrayEquals(new int[]{7, 2, 3, 4, 5, 6}, entry.getOldIndexOf());
+        assertArrayEquals(new int[]{3, 4, 5, 6, 7, 2}, entry.getNewIndexOf());
+        assertFalse(history.canUndo());
+        assertSame(entry, history.redo());
+        assertTrue(history.canUndo());
+
+        history.record(5, new int[]{5, 6});
+        assertFalse(history.canRedo());
+        assertSame(entry, history.undo(), "A permutation that moves nothing is not recorded.");
+    }
+
+    @Test
+    public void testNewReorderForgetsRedo() {
+        history.record(0, new int[]{1, 0});
+        history.undo();
+        assertTrue(history.canRedo());
+        history.record(0, new int[]{1, 0});
+        assertFalse(history.canRedo());
+    }
+
+    @Test
+    public void testMemoryLimit() {
+        for (int i = 0; i < 10; ++i) history.record(0, new int[]{1, 0});
+        long each = history.getMemoryUsed() / 10;
+        history.setMemoryLimit(each * 3);
+        assertEquals(each * 3, history.getMemoryUsed());
+        for (int i = 0; i < 3; ++i) assertNotNull(history.undo());
+        assertNull(history.undo());
+
+        int[] big = new int[1000];
+        for (int i = 0; i < big.length; ++i) big[i] = big.length - 1 - i;
+        history.record(0, big);
+        assertFalse(history.canUndo(), "Too big to keep, and older entries can't be undone without it.");
+        assertFalse(history.canRedo());
+        assertEquals(0, history.getMemoryUsed());
+    }
+}
@@ -0,0 +1,134 @@
+package com.marginallyclever.interactivecomponentlist;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RowOffsetsTest {
+    private RowOffsets offsets;
+
+    @BeforeEach
+    void setUp() {
+        offsets = new RowOffsets();
+        for (int i = 0; i < 100; ++i) offsets.insert(i, 10);
+    }
+
+    @Test
+    public void testTopsAndHitTest() {
+        assertEquals(1000, offsets.getTotalHeight());
+        assertEquals(500, offsets.getTop(50));
+        assertEquals(50, offsets.getRowAt(505));
+        assertEquals(-1, offsets.getRowAt(1000));
+        assertEquals(-1, offsets.getRowAt(-1));
+    }
+
+    @Test
+    public void testDropIndex() {
+        assertEquals(0, offsets.getDropIndex(4));
+        assertEquals(1, offsets.getDropIndex(5));
+        assertEquals(100, offsets.getDropIndex(2000));
+    }
+
+    @Test
+    public void testChangesOnlyShiftRowsBelow() {
+        offsets.setHeight(10, 30);
+        assertEquals(100, offsets.getTop(10));
+        assertEquals(130, offsets.getTop(11));
+        assertEquals(10, offsets.getRowAt(125));
+
+        offsets.move(10, 0);
+        assertEquals(30, offsets.getHeight(0));
+        assertEquals(30, offsets.getTop(1));
+        assertEquals(1020, offsets.getTotalHeight());
+
+        offsets.remove(0);
+        offsets.insert(50, 0);
+        assertEquals(100, offsets.size());
+        assertEquals(990, offsets.getTotalHeight());
+        assertEquals(51, offsets.getRowAt(500), "A row with no height is never hit.");
+    }
+
+    @Test
+    public void testFilteredRowsFollowMoves() {
+        offsets.setFiltered(3, true);
+        offsets.setFiltered(5, true);
+        assertFalse(offsets.setFiltered(5, true));
+        assertEquals(98, offsets.getUnfilteredCount());
+        assertEquals(-1, offsets.toViewIndex(3));
+        assertEquals(4, offsets.toViewIndex(6));
+        assertEquals(6, offsets.toModelIndex(4));
+
+        offsets.move(3, 10);
+        assertTrue(offsets.isFiltered(10));
+        assertTrue(offsets.isFiltered(4));
+        offsets.remove(4);
+        assertEquals(98, offsets.getUnfilteredCount(), "A hidden row was removed.");
+        assertTrue(offsets.isFiltered(9));
+        offsets.insert(0, 10);
+        assertTrue(offsets.isFiltered(10));
+        assertEquals(99, offsets.getUnfilteredCount());
+    }
+
+    @Test
+    public void testIndexConversionsMatchAScan() {
+        Random random = new Random(7);
+        for (int step = 0; step < 2000; ++step) {
+            int n = offsets.size();
+            switch (random.nextInt(4)) {
+                case 0 -> offsets.setFiltered(random.nextInt(n), random.nextBoolean());
+                case 1 -> offsets.move(random.nextInt(n), random.nextInt(n));
+                case 2 -> offsets.insert(random.nextInt(n + 1), 10);
+                default -> {
+                    if (n > 1) offsets.remove(random.nextInt(n));
+                }
+            }
+            if (step % 10 != 0) continue;
+            int view = 0;
+            for (int i = 0; i < offsets.size(); ++i) {
+                if (offsets.isFiltered(i)) {
+                    assertEquals(-1, offsets.toViewIndex(i));
+                } else {
+                    assertEquals(view, offsets.toViewIndex(i));
+                    assertEquals(i, offsets.toModelIndex(view));
+                    view++;
+                }
+            }
+            assertEquals(view, offsets.getUnfilteredCount());
+        }
+    }
+
+    @Test
+    public void testOffsetsMatchAScan() {
+        Random random = new Random(11);
+        for (int step = 0; step < 2000; ++step) {
+            int n = offsets.size();
+            switch (random.nextInt(6)) {
+                case 0, 1 -> offsets.setHeight(random.nextInt(n), random.nextInt(4) * 10);
+                case 2 -> offsets.move(random.nextInt(n), random.nextInt(n));
+                case 3 -> offsets.insert(random.nextBoolean() ? n : random.nextInt(n + 1), random.nextInt(30));
+                default -> {
+                    if (n > 1) offsets.remove(random.nextBoolean() ? n - 1 : random.nextInt(n));
+                }
+            }
+            if (step % 10 != 0) continue;
+            int top = 0;
+            for (int i = 0; i < offsets.size(); ++i) {
+                int h = offsets.getHeight(i);
+                assertEquals(top, offsets.getTop(i));
+                if (h > 0) {
+                    assertEquals(i, offsets.getRowAt(top));
+                    assertEquals(i, offsets.getRowAt(top + h - 1));
+                    assertEquals(i + 1, offsets.getDropIndex(top + h / 2));
+                }
+                if (h > 1) assertEquals(i, offsets.getDropIndex(top + h / 2 - 1));
+                top += h;
+            }
+            assertEquals(top, offsets.getTotalHeight());
+            assertEquals(-1, offsets.getRowAt(top));
+            assertEquals(offsets.size(), offsets.getDropIndex(top));
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package com.marginallyclever.interactivecomponentlist;
+
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RowSnapshotCacheTest {
+    /**
+     * Counts how often it is painted.
+     */
+    private static class CountingLabel extends JLabel {
+        int paints = 0;
+
+        CountingLabel(String text) {
+            super(text);
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            paints++;
+            super.paintComponent(g);
+        }
+    }
+
+    /**
+     * Lay out what is inside every row.  <code>validate()</code> does nothing without a window.
+     */
+    private static void layOutRows(Container c) {
+        for (Component child : c.getComponents()) {
+            if (child instanceof Container container) {
+                container.doLayout();
+                layOutRows(container);
+            }
+        }
+    }
+
+    private static void paint(InteractiveComponentList list) {
+        BufferedImage image = new BufferedImage(list.getWidth(), list.getHeight(), BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        list.paint(g);
+        g.dispose();
+    }
+
+    @Test
+    public void testRowsPaintFromSnapshotsDuringDrag() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            InteractiveComponentList list = new InteractiveComponentList();
+            CountingLabel[] labels = new CountingLabel[10];
+            for (int i = 0; i < labels.length; ++i) list.add(labels[i] = new CountingLabel("Item " + i));
+            list.setDragSnapshotsEnabled(true);
+            list.setSize(list.getPreferredSize());
+            list.doLayout();
+            layOutRows(list);
+            RepaintManager before = RepaintManager.currentManager(list);
+
+            var handle = ((InteractiveComponentListMiddle) list.getComponent(3)).getHandle();
+            handle.dispatchEvent(new MouseEvent(handle, MouseEvent.MOUSE_PRESSED, 0, 0, 1, 1, 1, false, MouseEvent.BUTTON1));
+            assertTrue(list.getSnapshots().isActive());
+            assertSame(before, RepaintManager.currentManager(list), "The application's RepaintManager stays.");
+            paint(list);
+            paint(list);
+            paint(list);
+            for (CountingLabel label : labels) assertEquals(1, label.paints, "Painted once, then from the snapshot.");
+            assertTrue(list.getSnapshots().getMemoryUsed() > 0);
+
+            labels[5].setForeground(Color.RED);
+            list.getComponent(6).setSize(list.getWidth(), list.getComponent(6).getHeight() + 1);
+            labels[7].repaint();
+            paint(list);
+            assertEquals(2, labels[5].paints, "A row whose component changed gets a new snapshot.");
+            assertEquals(2, labels[6].paints, "A row that changed size gets a new snapshot.");
+            assertEquals(1, labels[7].paints, "Repaints are not tracked unless asked for.");
+            assertEquals(1, labels[4].paints);
+
+            list.dragFinished();
+            assertFalse(list.getSnapshots().isActive());
+            assertEquals(0, list.getSnapshots().getMemoryUsed());
+            assertSame(before, RepaintManager.currentManager(list));
+            paint(list);
+            assertEquals(2, labels[4].paints, "Rows paint live after the drag.");
+        });
+    }
+
+    @Test
+    public void testMemoryLimit() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            InteractiveComponentList list = new InteractiveComponentList(InteractiveComponentList.RowStyle.PAINTED);
+            CountingLabel[] labels = new CountingLabel[10];
+            for (int i = 0; i < labels.length; ++i) list.add(labels[i] = new CountingLabel("Item " + i));
+            list.setDragSnapshotsEnabled(true);
+            list.setSize(list.getPreferredSize());
+            list.doLayout();
+            Component row = list.getComponent(0);
+            long each = 4L * row.getWidth() * row.getHeight();
+            list.setSnapshotMemoryLimit(each * 4);
+
+            list.getSnapshots().begin();
+            paint(list);
+            paint(list);
+            assertTrue(list.getSnapshots().getMemoryUsed() <= each * 4);
+            for (CountingLabel label : labels) assertEquals(2, label.paints, "Too many rows to keep them all.");
+
+            list.setSnapshotMemoryLimit(each - 1);
+            paint(list);
+            for (CountingLabel label : labels) assertEquals(3, label.paints, "Rows too big for the limit paint live.");
+            assertEquals(0, list.getSnapshots().getMemoryUsed());
+            list.getSnapshots().end();
+        });
+    }
+
+    @Test
+    public void testRepaintTrackingIsOptIn() throws Exception {
+        SwingUtilities.invokeAndWait(() -> {
+            InteractiveComponentList list = new InteractiveComponentList(InteractiveComponentList.RowStyle.PAINTED);
+            CountingLabel[] labels = new CountingLabel[3];
+            for (int i = 0; i < labels.length; ++i) list.add(labels[i] = new CountingLabel("Item " + i));
+            list.setDragSnapshotsEnabled(true);
+            list.setDragSnapshotRepaintTracking(true);
+            list.setSize(list.getPreferredSize());
+            list.doLayout();
+            RepaintManager before = RepaintManager.currentManager(list);
+
+            list.getSnapshots().begin();
+            assertNotSame(before, RepaintManager.currentManager(list));
+            paint(list);
+            labels[0].repaint();
+            labels[1].setText("Changed");
+            paint(list);
+            assertEquals(2, labels[0].paints, "A row that asked to be repainted gets a new snapshot.");
+            assertEquals(2, labels[1].paints, "A painted row whose text changed gets a new snapshot.");
+            assertEquals(1, labels[2].paints);
+            list.getSnapshots().end();
+            assertSame(before, RepaintManager.currentManager(list));
+        });
+    }
+}
@@ -0,0 +1,134 @@
+package com.marginallyclever.interactivecomponentlist;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VirtualInteractiveComponentListTest {
+    private DefaultListModel<String> model;
+    private VirtualInteractiveComponentList<String> list;
+    private JScrollPane scrollPane;
+    private int binds = 0;
+
+    @BeforeEach
+    void setUp() {
+        model = new DefaultListModel<>();
+        for (int i = 0; i < 10_000; ++i) model.addElement("Item " + i);
+
+        list = new VirtualInteractiveComponentList<>(model, new LabelFactory());
+        list.setFixedRowHeight(20);
+
+        scrollPane = new JScrollPane(list);
+        scrollPane.setSize(200, 200);
+        layoutTree(scrollPane);
+    }
+
+    private class LabelFactory implements VirtualInteractiveComponentList.RowFactory<String> {
+        @Override
+        public Component createRow() {
+            return new JLabel();
+        }
+
+        @Override
+        public void bindRow(Component row, String value, int index) {
+            binds++;
+            ((JLabel) row).setText(value);
+        }
+    }
+
+    private static void layoutTree(Container c) {
+        c.doLayout();
+        for (Component child : c.getComponents()) {
+            if (child instanceof Container container) layoutTree(container);
+        }
+    }
+
+    private boolean isShowing(String text) {
+        for (Component c : list.getComponents()) {
+            if (c.isVisible() && ((JLabel) ((InteractiveComponentListMiddle) c).getInnerComponent()).getText().equals(text)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Test
+    public void testOnlyVisibleRowsAreCreated() {
+        assertEquals(10_000 * 20, list.getPreferredSize().height);
+        assertTrue(list.getComponentCount() <= 12, "Only the rows in the viewport should exist.");
+        assertTrue(isShowing("Item 0"));
+
+        int before = list.getComponentCount();
+        scrollPane.getViewport().setViewPosition(new Point(0, 5000 * 20));
+        assertTrue(isShowing("Item 5000"));
+        assertFalse(isShowing("Item 0"));
+        assertEquals(before, list.getComponentCount(), "Rows should be recycled, not created.");
+    }
+
+    @Test
+    public void testSelectionSurvivesMoveOffScreen() {
+        list.enableSelection(true);
+        list.setSelected(9000, true);
+        list.moveRow(9000, 0);
+        assertArrayEquals(new int[]{0}, list.getSelectedIndices());
+        assertEquals(List.of("Item 9000"), list.getSelectedValues());
+        assertEquals("Item 0", model.get(1));
+
+        model.add(0, "New");
+        assertArrayEquals(new int[]{1}, list.getSelectedIndices());
+        model.remove(0);
+        assertArrayEquals(new int[]{0}, list.getSelectedIndices());
+    }
+
+    @Test
+    public void testDropIndex() {
+        assertEquals(0, list.getDropIndex(new Point(0, 5)));
+        assertEquals(1, list.getDropIndex(new Point(0, 25)));
+        assertEquals(10_000, list.getDropIndex(new Point(0, 10_000 * 20 + 50)));
+    }
+
+    @Test
+    public void testDragOverVirtualRowIsRejected() {
+        InteractiveComponentListMiddle row = (InteractiveComponentListMiddle) list.getComponent(0);
+        assertNull(row.getTransferHandler(), "Virtual rows drag with the mouse, not drag and drop.");
+
+        Point p = new Point(5, 5);
+        assertFalse(InteractiveComponentListMiddle.DADInnerPanelDropTargetListener.dragOverRow(row, p));
+        assertFalse(InteractiveComponentListMiddle.DADInnerPanelDropTargetListener.dropOnRow(row, p, row));
+        assertFalse(InteractiveComponentListMiddle.DADInnerPanelDropTargetListener.dragOverRow((Container) row.getInnerComponent().getParent(), p));
+        assertEquals("Item 0", model.get(0));
+    }
+
+    @Test
+    public void testMeasuringAddsNoRow() {
+        VirtualInteractiveComponentList<String> measured =
+                new VirtualInteractiveComponentList<>(model, new LabelFactory());
+        assertTrue(measured.getRowHeight() > 0);
+        assertEquals(0, measured.getComponentCount(), "Measuring does not create or bind a row of the list.");
+        assertTrue(measured.getPreferredSize().width > 0);
+    }
+
+    @Test
+    public void testOnlyChangedItemsAreBoundAgain() {
+        binds = 0;
+        model.add(0, "New");
+        model.remove(5);
+        model.set(3, "Changed");
+        list.doLayout();
+        // the new item and the changed item.  the rest are the items that were showing, one row up or down.
+        assertEquals(2, binds);
+        assertTrue(isShowing("New"));
+        assertTrue(isShowing("Changed"));
+        assertFalse(isShowing("Item 4"));
+        for (Component c : list.getComponents()) {
+            if (!c.isVisible()) continue;
+            JLabel label = (JLabel) ((InteractiveComponentListMiddle) c).getInnerComponent();
+            assertEquals(model.get(c.getY() / 20), label.getText());
+        }
+    }
+}